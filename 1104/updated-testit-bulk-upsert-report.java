@@ -0,0 +1,21 @@
+package com.ringcentral.engagemetrics.modals.api.response.testit;
+
+/**
+ * Outcome of a bulk TestIt ingestion run
+ *
+ * @param projectsReceived    distinct projects in the request
+ * @param documentsInserted   projects written as new documents
+ * @param documentsUpdated    existing documents that received a partial update
+ * @param documentsReplaced   existing documents that changed after being read and were rewritten in full instead
+ * @param documentsUnchanged  existing documents that were left untouched
+ * @param subtreesWritten     suite subtrees written by the partial updates
+ * @param bytesWritten        BSON bytes of all inserted and replaced documents and updated subtrees
+ */
+public record TestItBulkUpsertReport(int projectsReceived,
+                                     int documentsInserted,
+                                     int documentsUpdated,
+                                     int documentsReplaced,
+                                     int documentsUnchanged,
+                                     int subtreesWritten,
+                                     long bytesWritten) {
+}
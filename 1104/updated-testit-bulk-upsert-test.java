@@ -0,0 +1,161 @@
+package com.ringcentral.engagemetrics.services.impl;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.ringcentral.engagemetrics.database.mongo.documents.RCTestItData;
+import com.ringcentral.engagemetrics.database.mongo.repositories.RCTestItDataRepository;
+import com.ringcentral.engagemetrics.modals.api.response.testit.TestItBulkUpsertReport;
+import com.ringcentral.engagemetrics.modals.api.response.testit.TestItData;
+import com.ringcentral.engagemetrics.services.mappers.TestItDataMapper;
+import de.bwaldvogel.mongo.MongoServer;
+import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.repository.support.MongoRepositoryFactory;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the bulk upsert against an in-process Mongo (de.bwaldvogel:mongo-java-server, test scope)
+ */
+class TestItDataServiceImplBulkUpsertTests {
+
+	private static final int PROJECTS = 200;
+
+	private MongoServer server;
+	private MongoClient client;
+	private MongoTemplate mongoTemplate;
+	private RCTestItDataRepository repository;
+	private final Map<TestItData, String> projectIds = new IdentityHashMap<>();
+	private int leafCount = 3;
+
+	@BeforeEach
+	void startMongo() {
+		server = new MongoServer(new MemoryBackend());
+		InetSocketAddress address = server.bind();
+		client = MongoClients.create("mongodb://" + address.getHostString() + ":" + address.getPort());
+		mongoTemplate = new MongoTemplate(client, "testit");
+		repository = new MongoRepositoryFactory(mongoTemplate).getRepository(RCTestItDataRepository.class);
+	}
+
+	@AfterEach
+	void stopMongo() {
+		client.close();
+		server.shutdown();
+	}
+
+	@Test
+	void writesOnlyChangedSuiteSubtrees() {
+		TestItDataServiceImpl service = service(repository);
+		List<TestItData> projects = projects();
+
+		TestItBulkUpsertReport inserted = service.saveOrUpdateAll(projects);
+		assertEquals(PROJECTS, inserted.documentsInserted());
+		assertEquals(PROJECTS, repository.count());
+
+		TestItBulkUpsertReport rerun = service.saveOrUpdateAll(projects);
+		assertEquals(PROJECTS, rerun.documentsUnchanged());
+		assertEquals(0, rerun.bytesWritten());
+
+		leafCount = 30;
+		TestItBulkUpsertReport changed = service.saveOrUpdateAll(projects.subList(0, 10));
+		assertEquals(10, changed.documentsUpdated());
+		assertEquals(0, changed.documentsReplaced());
+		assertEquals(10, changed.subtreesWritten());
+		assertTrue(changed.bytesWritten() < inserted.bytesWritten() / PROJECTS * 10);
+		assertEquals(30, leaf(repository.findByProjectId("P3")).getTotalTestCases());
+		assertEquals(3, leaf(repository.findByProjectId("P30")).getTotalTestCases());
+		assertEquals(PROJECTS, repository.count());
+	}
+
+	@Test
+	void replacesDocumentChangedAfterRead() {
+		List<TestItData> projects = projects();
+		service(repository).saveOrUpdateAll(projects);
+
+		// A concurrent save reorders the suites of P1 right after the service read it, so the delta's positional paths are stale
+		RCTestItDataRepository concurrentlyModified = (RCTestItDataRepository) Proxy.newProxyInstance(
+				RCTestItDataRepository.class.getClassLoader(), new Class<?>[]{RCTestItDataRepository.class},
+				(proxy, method, args) -> {
+					Object result;
+					try {
+						result = method.invoke(repository, args);
+					} catch (InvocationTargetException e) {
+						throw e.getCause();
+					}
+					if (method.getName().equals("findByProjectIdIn")) {
+						RCTestItData stored = repository.findByProjectId("P1");
+						List<RCTestItData.TestSuite> children = stored.getTestSuites().get(0).getChildSuites();
+						children.add(0, children.remove(1));
+						repository.save(stored);
+					}
+					return result;
+				});
+
+		RCTestItData unchangedP0 = project("P0");
+		leafCount = 30;
+		TestItBulkUpsertReport report = service(concurrentlyModified).saveOrUpdateAll(projects.subList(0, 3));
+
+		assertEquals(2, report.documentsUpdated());
+		assertEquals(1, report.documentsReplaced());
+		assertEquals(2, report.subtreesWritten());
+		// Deltas of the two updates that applied, plus P1 in full; the delta prepared for P1 matched nothing
+		long deltaBytes = TestItSuiteDelta.between(mongoTemplate.getConverter(), unchangedP0, project("P0")).getBytesWritten();
+		assertEquals(2 * deltaBytes + TestItSuiteDelta.bsonSize(mongoTemplate.getConverter(), project("P1")), report.bytesWritten());
+		RCTestItData replaced = repository.findByProjectId("P1");
+		assertEquals("a", replaced.getTestSuites().get(0).getChildSuites().get(0).getSuiteId());
+		assertEquals(30, leaf(replaced).getTotalTestCases());
+		assertEquals(5, replaced.getTestSuites().get(0).getChildSuites().get(1).getTotalTestCases());
+		assertEquals(30, leaf(repository.findByProjectId("P2")).getTotalTestCases());
+	}
+
+	private TestItDataServiceImpl service(RCTestItDataRepository repository) {
+		TestItDataMapper mapper = data -> project(projectIds.get(data));
+		return new TestItDataServiceImpl(repository, mapper, mongoTemplate);
+	}
+
+	private List<TestItData> projects() {
+		List<TestItData> projects = new ArrayList<>();
+		for (int i = 0; i < PROJECTS; i++) {
+			TestItData data = new TestItData();
+			projectIds.put(data, "P" + i);
+			projects.add(data);
+		}
+		return projects;
+	}
+
+	private RCTestItData project(String projectId) {
+		RCTestItData doc = new RCTestItData();
+		doc.setProjectId(projectId);
+		doc.setProjectName("Project " + projectId);
+		doc.setTestSuites(new ArrayList<>(List.of(
+				suite("root", 1, suite("a", 2, suite("a1", leafCount), suite("a2", 4)), suite("b", 5)))));
+		return doc;
+	}
+
+	private static RCTestItData.TestSuite suite(String suiteId, int totalTestCases, RCTestItData.TestSuite... childSuites) {
+		RCTestItData.TestSuite suite = new RCTestItData.TestSuite();
+		suite.setSuiteId(suiteId);
+		suite.setSuiteName(suiteId);
+		suite.setTotalTestCases(totalTestCases);
+		suite.setChildSuites(new ArrayList<>(List.of(childSuites)));
+		return suite;
+	}
+
+	private static RCTestItData.TestSuite leaf(RCTestItData doc) {
+		return doc.getTestSuites().get(0).getChildSuites().stream()
+				.filter(suite -> suite.getSuiteId().equals("a"))
+				.findFirst().orElseThrow()
+				.getChildSuites().get(0);
+	}
+}
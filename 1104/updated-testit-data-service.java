@@ -0,0 +1,20 @@
+package com.ringcentral.engagemetrics.services;
+
+import com.ringcentral.engagemetrics.modals.api.response.testit.TestItBulkUpsertReport;
+import com.ringcentral.engagemetrics.modals.api.response.testit.TestItData;
+
+import java.util.List;
+import java.util.Map;
+
+public interface TestItDataService {
+    List<Map<String, Object>> findStats(List<String> projectNameList, List<String> suiteNameList);
+
+    Map<String, Object> findStatsByHierarchy(List<String> paths);
+
+    void saveOrUpdate(TestItData testItData);
+
+    /**
+     * Upserts many projects in one bulk write, writing only the suite subtrees that changed
+     */
+    TestItBulkUpsertReport saveOrUpdateAll(List<TestItData> testItDataList);
+}
@@ -0,0 +1,18 @@
+package com.ringcentral.engagemetrics.database.mongo.repositories;
+
+import com.ringcentral.engagemetrics.database.mongo.documents.RCTestItData;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface RCTestItDataRepository extends MongoRepository<RCTestItData, String> {
+    RCTestItData findByProjectId(String projectId);
+
+    /**
+     * Fetches the documents of several projects in a single round trip
+     */
+    List<RCTestItData> findByProjectIdIn(Collection<String> projectIds);
+}
@@ -2,14 +2,25 @@ package com.ringcentral.engagemetrics.services.impl;
 
 import com.ringcentral.engagemetrics.database.mongo.documents.RCTestItData;
 import com.ringcentral.engagemetrics.database.mongo.repositories.RCTestItDataRepository;
+import com.ringcentral.engagemetrics.modals.api.response.testit.TestItBulkUpsertReport;
 import com.ringcentral.engagemetrics.modals.api.response.testit.TestItData;
 import com.ringcentral.engagemetrics.services.TestItDataService;
 import com.ringcentral.engagemetrics.services.mappers.TestItDataMapper;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import com.mongodb.bulk.BulkWriteResult;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import static java.util.Objects.isNull;
 
 @Service
@@ -18,6 +29,13 @@ import static java.util.Objects.isNull;
 public class TestItDataServiceImpl implements TestItDataService {
     private final RCTestItDataRepository rcTestItDataRepository;
     private final TestItDataMapper testItDataMapper;
+    private final MongoTemplate mongoTemplate;
+    // projectId -> suite index with rolled-up stats, rebuilt whenever the project document is saved
+    private final Map<String, CachedSuiteIndex> suiteIndexCache = new ConcurrentHashMap<>();
+    // Advanced after every save, so an index built from an earlier read never replaces a newer one
+    private final AtomicLong writeSequence = new AtomicLong();
+    // Held across a save and taking its version, so versions follow the order writes reach Mongo
+    private final Object writeLock = new Object();
 
     @Override
     public List<Map<String, Object>> findStats(List<String> projectNameList, List<String> suiteNameList) {
@@ -26,110 +44,316 @@ public class TestItDataServiceImpl implements TestItDataService {
 
     @Override
     public Map<String, Object> findStatsByHierarchy(List<String> paths) {
-        List<Map<String, Object>> statsList = new ArrayList<>();
+        Map<String, SuiteIndex> suiteIndexes = loadSuiteIndexes(paths);
+        Map<String, List<SuiteNode>> selectedByProject = new HashMap<>();
         
         for (String path : paths) {
             String[] parts = path.split(":");
             if (parts.length < 2) {
-                statsList.add(Map.of("error", "Invalid path: " + path));
+                log.warn("Invalid path: {}", path);
                 continue;
             }
             
             String projectId = parts[0];
             String suiteId = parts[parts.length - 1];
             
-            RCTestItData doc = rcTestItDataRepository.findByProjectId(projectId);
-            if (doc == null) {
-                statsList.add(Map.of("error", "No document found for projectId=" + projectId));
+            SuiteIndex suiteIndex = suiteIndexes.get(projectId);
+            if (suiteIndex == null) {
+                log.warn("No document found for projectId={}", projectId);
                 continue;
             }
             
-            RCTestItData.TestSuite suite = findSuiteById(doc.getTestSuites(), suiteId);
-            if (suite == null) {
-                statsList.add(Map.of("error", "SuiteId=" + suiteId + " not found under projectId=" + projectId));
+            SuiteNode node = suiteIndex.get(suiteId);
+            if (node == null) {
+                log.warn("SuiteId={} not found under projectId={}", suiteId, projectId);
             } else {
-                statsList.add(getStringObjectMap(projectId, suiteId, suite));
+                selectedByProject.computeIfAbsent(projectId, k -> new ArrayList<>()).add(node);
             }
         }
         
-        return aggregateObjectMap(statsList);
+        TestSuiteStats aggregated = TestSuiteStats.EMPTY;
+        for (List<SuiteNode> nodes : selectedByProject.values()) {
+            aggregated = aggregated.plus(sumNonOverlapping(nodes));
+        }
+        return aggregated.toMap();
     }
 
-    private static Map<String, Object> getStringObjectMap(String projectId, String suiteId, RCTestItData.TestSuite testSuite) {
-        Map<String, Object> stat = new HashMap<>();
-        stat.put("Total_Test_Cases", testSuite.getTotalTestCases());
-        stat.put("Passing_Test_Cases", testSuite.getPassingTestCases());
-        stat.put("Failing_Test_Cases", testSuite.getFailingTestCases());
-        stat.put("Skipped_Test_Cases", testSuite.getSkippedTestCases());
-        stat.put("Automated_Test_Cases", testSuite.getAutomatedTestCases());
-        stat.put("Automatable_Test_Cases", testSuite.getAutomatableTestCases());
-        return stat;
+    /**
+     * Sums the rolled-up stats of the given suites, skipping suites that are already covered
+     * by another selected suite (the same suite or one of its ancestors)
+     * 
+     * @param nodes Selected suites of a single project
+     * @return Sum of the outermost selected suites
+     */
+    private static TestSuiteStats sumNonOverlapping(List<SuiteNode> nodes) {
+        nodes.sort(Comparator.comparingInt(SuiteNode::start));
+        TestSuiteStats sum = TestSuiteStats.EMPTY;
+        int coveredUntil = -1;
+        for (SuiteNode node : nodes) {
+            // Sorted by pre-order position, a node is a descendant of the last counted one iff it starts inside its range
+            if (node.start() < coveredUntil) {
+                continue;
+            }
+            sum = sum.plus(node.rollup());
+            coveredUntil = node.end();
+        }
+        return sum;
     }
 
-    private static Map<String, Object> aggregateObjectMap(List<Map<String, Object>> statsList) {
-        Map<String, Object> aggregated = new HashMap<>();
-        aggregated.put("Total_Test_Cases", 0);
-        aggregated.put("Passing_Test_Cases", 0);
-        aggregated.put("Failing_Test_Cases", 0);
-        aggregated.put("Skipped_Test_Cases", 0);
-        aggregated.put("Automated_Test_Cases", 0);
-        aggregated.put("Automatable_Test_Cases", 0);
+    /**
+     * Resolves the suite index of every project referenced by the paths, fetching all
+     * projects that are not cached yet in one repository call
+     * 
+     * @param paths Paths in the format "projectId:suiteId:childSuiteId"
+     * @return Suite index per projectId; projects without a document are absent
+     */
+    private Map<String, SuiteIndex> loadSuiteIndexes(List<String> paths) {
+        Map<String, SuiteIndex> suiteIndexes = new HashMap<>();
+        Set<String> missingProjectIds = new HashSet<>();
         
-        for (Map<String, Object> statMap : statsList) {
-            for (String key : aggregated.keySet()) {
-                int currentValue = (int) aggregated.getOrDefault(key, 0);
-                int addValue = (int) statMap.getOrDefault(key, 0);
-                aggregated.put(key, currentValue + addValue);
+        for (String path : paths) {
+            String projectId = path.split(":")[0];
+            CachedSuiteIndex cached = suiteIndexCache.get(projectId);
+            if (cached != null) {
+                suiteIndexes.put(projectId, cached.index());
+            } else {
+                missingProjectIds.add(projectId);
+            }
+        }
+        
+        if (!missingProjectIds.isEmpty()) {
+            // Taken before the read: a save that completes meanwhile gets a higher version and is kept
+            long readVersion = writeSequence.get();
+            for (RCTestItData doc : rcTestItDataRepository.findByProjectIdIn(missingProjectIds)) {
+                SuiteIndex suiteIndex = SuiteIndex.build(doc.getTestSuites());
+                suiteIndexes.put(doc.getProjectId(), cacheSuiteIndex(doc.getProjectId(), readVersion, suiteIndex));
             }
         }
         
-        return aggregated;
+        return suiteIndexes;
     }
 
     /**
-     * Recursively finds a test suite by its ID in a hierarchical structure
+     * Stores the index unless the cache already holds one built at the same or a later version
      * 
-     * @param suiteList List of test suites to search in
-     * @param suiteId The ID of the suite to find
-     * @return The found TestSuite or null if not found
+     * @return The index now cached for the project
      */
-    private RCTestItData.TestSuite findSuiteById(List<RCTestItData.TestSuite> suiteList, String suiteId) {
-        if(isNull(suiteList)) {
-            return null;
+    private SuiteIndex cacheSuiteIndex(String projectId, long version, SuiteIndex suiteIndex) {
+        return suiteIndexCache.merge(projectId, new CachedSuiteIndex(version, suiteIndex),
+                (current, candidate) -> current.version() >= candidate.version() ? current : candidate).index();
+    }
+
+    @Override
+    public void saveOrUpdate(TestItData testItData) {
+        RCTestItData newDoc = testItDataMapper.toEntity(testItData);
+        
+        long writeVersion;
+        synchronized (writeLock) {
+            // Check if document exists
+            RCTestItData existingDoc = rcTestItDataRepository.findByProjectId(newDoc.getProjectId());
+            if (existingDoc != null) {
+                existingDoc.setProjectName(newDoc.getProjectName());
+                existingDoc.setProjectPrefix(newDoc.getProjectPrefix());
+                existingDoc.setTestSuites(newDoc.getTestSuites());
+                rcTestItDataRepository.save(existingDoc);
+                log.info("Updated project document for projectId {}", newDoc.getProjectId());
+            } else {
+                rcTestItDataRepository.save(newDoc);
+                log.info("Created new project document for projectId {}", newDoc.getProjectId());
+            }
+            writeVersion = writeSequence.incrementAndGet();
+        }
+        // Materialize the rollups at write time so reads only sum precomputed nodes
+        cacheSuiteIndex(newDoc.getProjectId(), writeVersion, SuiteIndex.build(newDoc.getTestSuites()));
+    }
+
+    @Override
+    public TestItBulkUpsertReport saveOrUpdateAll(List<TestItData> testItDataList) {
+        // The last entry wins when a project appears more than once
+        Map<String, RCTestItData> newDocs = new LinkedHashMap<>();
+        for (TestItData testItData : testItDataList) {
+            RCTestItData newDoc = testItDataMapper.toEntity(testItData);
+            newDocs.put(newDoc.getProjectId(), newDoc);
+        }
+        
+        Map<String, RCTestItData> existingDocs = new HashMap<>();
+        for (RCTestItData doc : rcTestItDataRepository.findByProjectIdIn(newDocs.keySet())) {
+            existingDocs.put(doc.getProjectId(), doc);
         }
         
-        for(RCTestItData.TestSuite testSuite : suiteList) {
-            if(testSuite != null && testSuite.getSuiteId() != null && testSuite.getSuiteId().equals(suiteId)) {
-                return testSuite;
+        MongoConverter converter = mongoTemplate.getConverter();
+        String collectionName = mongoTemplate.getCollectionName(RCTestItData.class);
+        String projectIdField = TestItSuiteDelta.fieldName(converter, RCTestItData.class, "projectId");
+        BulkOperations bulkOperations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, collectionName);
+        List<RCTestItData> writtenDocs = new ArrayList<>();
+        Map<String, RCTestItData> guardedUpdates = new HashMap<>();
+        Map<String, TestItSuiteDelta> guardedDeltas = new HashMap<>();
+        int inserted = 0, updated = 0, unchanged = 0, subtreesWritten = 0;
+        long bytesWritten = 0;
+        
+        for (RCTestItData newDoc : newDocs.values()) {
+            RCTestItData existingDoc = existingDocs.get(newDoc.getProjectId());
+            if (existingDoc == null) {
+                bulkOperations.insert(TestItSuiteDelta.toStoredDocument(converter, newDoc));
+                bytesWritten += TestItSuiteDelta.bsonSize(converter, newDoc);
+                inserted++;
+                writtenDocs.add(newDoc);
+                continue;
             }
             
-            // Recursively search in child suites
-            if (testSuite != null && testSuite.getChildSuites() != null) {
-                RCTestItData.TestSuite foundSuite = findSuiteById(testSuite.getChildSuites(), suiteId);
-                if(foundSuite != null) {
-                    return foundSuite;
+            TestItSuiteDelta delta = TestItSuiteDelta.between(converter, existingDoc, newDoc);
+            if (delta.isEmpty()) {
+                unchanged++;
+                continue;
+            }
+            // The delta's positional paths are only valid while the stored content is still the one read above
+            Query unchangedSinceRead = Query.query(Criteria.where(projectIdField).is(newDoc.getProjectId())
+                    .and(TestItSuiteDelta.CONTENT_HASH_FIELD).is(TestItSuiteDelta.contentHash(converter, existingDoc)));
+            Update update = delta.getUpdate().set(TestItSuiteDelta.CONTENT_HASH_FIELD, TestItSuiteDelta.contentHash(converter, newDoc));
+            bulkOperations.updateOne(unchangedSinceRead, update);
+            guardedUpdates.put(newDoc.getProjectId(), newDoc);
+            guardedDeltas.put(newDoc.getProjectId(), delta);
+            subtreesWritten += delta.getSubtreesWritten();
+            bytesWritten += delta.getBytesWritten();
+            updated++;
+            writtenDocs.add(newDoc);
+        }
+        
+        int replaced = 0;
+        long writeVersion;
+        synchronized (writeLock) {
+            if (!writtenDocs.isEmpty()) {
+                BulkWriteResult result = bulkOperations.execute();
+                if (result.getMatchedCount() < guardedUpdates.size()) {
+                    List<RCTestItData> staleDocs = findChangedSinceRead(guardedUpdates, projectIdField, collectionName);
+                    BulkOperations replacements = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, collectionName);
+                    for (RCTestItData staleDoc : staleDocs) {
+                        replacements.replaceOne(Query.query(Criteria.where(projectIdField).is(staleDoc.getProjectId())),
+                                TestItSuiteDelta.toStoredDocument(converter, staleDoc));
+                        // The delta matched nothing, so only the full document counts as written
+                        TestItSuiteDelta staleDelta = guardedDeltas.get(staleDoc.getProjectId());
+                        subtreesWritten -= staleDelta.getSubtreesWritten();
+                        bytesWritten += TestItSuiteDelta.bsonSize(converter, staleDoc) - staleDelta.getBytesWritten();
+                    }
+                    if (!staleDocs.isEmpty()) {
+                        replacements.execute();
+                        log.warn("{} TestIt documents changed while being updated and were replaced in full", staleDocs.size());
+                    }
+                    replaced = staleDocs.size();
+                    updated -= replaced;
                 }
             }
+            writeVersion = writeSequence.incrementAndGet();
+        }
+        for (RCTestItData writtenDoc : writtenDocs) {
+            cacheSuiteIndex(writtenDoc.getProjectId(), writeVersion, SuiteIndex.build(writtenDoc.getTestSuites()));
         }
         
-        return null;
+        TestItBulkUpsertReport report = new TestItBulkUpsertReport(newDocs.size(), inserted, updated, replaced, unchanged,
+                subtreesWritten, bytesWritten);
+        log.info("Bulk TestIt upsert: {}", report);
+        return report;
     }
 
-    @Override
-    public void saveOrUpdate(TestItData testItData) {
-        RCTestItData newDoc = testItDataMapper.toEntity(testItData);
-        
-        // Check if document exists
-        RCTestItData existingDoc = rcTestItDataRepository.findByProjectId(newDoc.getProjectId());
-        if (existingDoc != null) {
-            existingDoc.setProjectName(newDoc.getProjectName());
-            existingDoc.setProjectPrefix(newDoc.getProjectPrefix());
-            existingDoc.setTestSuites(newDoc.getTestSuites());
-            rcTestItDataRepository.save(existingDoc);
-            log.info("Updated project document for projectId {}", newDoc.getProjectId());
-        } else {
-            rcTestItDataRepository.save(newDoc);
-            log.info("Created new project document for projectId {}", newDoc.getProjectId());
+    /**
+     * Finds the guarded updates that did not apply, i.e. whose document does not carry the new content hash
+     * 
+     * @param guardedUpdates New documents by projectId
+     * @return New documents whose stored counterpart changed after it was read
+     */
+    private List<RCTestItData> findChangedSinceRead(Map<String, RCTestItData> guardedUpdates, String projectIdField,
+                                                    String collectionName) {
+        Query query = Query.query(Criteria.where(projectIdField).in(guardedUpdates.keySet()));
+        query.fields().include(projectIdField).include(TestItSuiteDelta.CONTENT_HASH_FIELD);
+        Map<String, RCTestItData> stale = new HashMap<>(guardedUpdates);
+        for (Document stored : mongoTemplate.find(query, Document.class, collectionName)) {
+            RCTestItData newDoc = guardedUpdates.get(stored.getString(projectIdField));
+            if (newDoc != null && TestItSuiteDelta.contentHash(mongoTemplate.getConverter(), newDoc)
+                    .equals(stored.getString(TestItSuiteDelta.CONTENT_HASH_FIELD))) {
+                stale.remove(newDoc.getProjectId());
+            }
+        }
+        return new ArrayList<>(stale.values());
+    }
+
+    /**
+     * Test case counts of a suite including all of its child suites
+     */
+    record TestSuiteStats(int total, int passing, int failing, int skipped, int automated, int automatable) {
+        static final TestSuiteStats EMPTY = new TestSuiteStats(0, 0, 0, 0, 0, 0);
+
+        static TestSuiteStats of(RCTestItData.TestSuite testSuite) {
+            return new TestSuiteStats(testSuite.getTotalTestCases(), testSuite.getPassingTestCases(),
+                    testSuite.getFailingTestCases(), testSuite.getSkippedTestCases(),
+                    testSuite.getAutomatedTestCases(), testSuite.getAutomatableTestCases());
+        }
+
+        TestSuiteStats plus(TestSuiteStats other) {
+            return new TestSuiteStats(total + other.total, passing + other.passing, failing + other.failing,
+                    skipped + other.skipped, automated + other.automated, automatable + other.automatable);
+        }
+
+        Map<String, Object> toMap() {
+            Map<String, Object> stat = new HashMap<>();
+            stat.put("Total_Test_Cases", total);
+            stat.put("Passing_Test_Cases", passing);
+            stat.put("Failing_Test_Cases", failing);
+            stat.put("Skipped_Test_Cases", skipped);
+            stat.put("Automated_Test_Cases", automated);
+            stat.put("Automatable_Test_Cases", automatable);
+            return stat;
+        }
+    }
+
+    /**
+     * A suite index and the write sequence it was built at
+     */
+    record CachedSuiteIndex(long version, SuiteIndex index) {
+    }
+
+    /**
+     * A suite's pre-order range [start, end) in its project tree, and its rolled-up stats
+     */
+    record SuiteNode(int start, int end, TestSuiteStats rollup) {
+    }
+
+    /**
+     * Flattened suiteId -> node map of one project document
+     */
+    static final class SuiteIndex {
+        private final Map<String, SuiteNode> nodes = new HashMap<>();
+        private int position;
+
+        static SuiteIndex build(List<RCTestItData.TestSuite> suiteList) {
+            SuiteIndex index = new SuiteIndex();
+            index.rollup(suiteList);
+            return index;
+        }
+
+        SuiteNode get(String suiteId) {
+            return nodes.get(suiteId);
+        }
+
+        /**
+         * Visits suites depth-first, so the first suite with a given ID wins as it did with the recursive search
+         */
+        private TestSuiteStats rollup(List<RCTestItData.TestSuite> suiteList) {
+            TestSuiteStats sum = TestSuiteStats.EMPTY;
+            if (isNull(suiteList)) {
+                return sum;
+            }
+            for (RCTestItData.TestSuite testSuite : suiteList) {
+                if (testSuite == null) {
+                    continue;
+                }
+                int start = position++;
+                TestSuiteStats rollup = TestSuiteStats.of(testSuite).plus(rollup(testSuite.getChildSuites()));
+                if (testSuite.getSuiteId() != null) {
+                    nodes.putIfAbsent(testSuite.getSuiteId(), new SuiteNode(start, position, rollup));
+                }
+                sum = sum.plus(rollup);
+            }
+            return sum;
         }
     }
 }
\ No newline at end of file
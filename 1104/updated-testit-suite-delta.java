@@ -0,0 +1,182 @@
+package com.ringcentral.engagemetrics.services.impl;
+
+import com.ringcentral.engagemetrics.database.mongo.documents.RCTestItData;
+import org.bson.BsonBinaryWriter;
+import org.bson.Document;
+import org.bson.codecs.DocumentCodec;
+import org.bson.codecs.EncoderContext;
+import org.bson.io.BasicOutputBuffer;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Partial update that turns a stored TestIt project document into a new one by setting only
+ * the suite subtrees whose encoded content changed
+ */
+class TestItSuiteDelta {
+    /**
+     * Hash of the content a document was last written with by the bulk upsert. The positional paths of a delta
+     * are only valid for that content, so updates are filtered on it. Every other write of the document is a repository
+     * save, which replaces it without the field, so the next delta falls back to a full replace.
+     */
+    static final String CONTENT_HASH_FIELD = "contentHash";
+
+    private static final DocumentCodec DOCUMENT_CODEC = new DocumentCodec();
+
+    private final String testSuitesField;
+    private final String childSuitesField;
+    private final Update update = new Update();
+    private int subtreesWritten;
+    private long bytesWritten;
+
+    private TestItSuiteDelta(MongoConverter mongoConverter) {
+        this.testSuitesField = fieldName(mongoConverter, RCTestItData.class, "testSuites");
+        this.childSuitesField = fieldName(mongoConverter, RCTestItData.TestSuite.class, "childSuites");
+    }
+
+    /**
+     * Computes the update from the stored document to the new one
+     *
+     * @param mongoConverter Converter used to map both documents to BSON
+     * @param existingDoc    Document currently stored
+     * @param newDoc         Document to store
+     * @return Delta, empty when both documents hold the same content
+     */
+    static TestItSuiteDelta between(MongoConverter mongoConverter, RCTestItData existingDoc, RCTestItData newDoc) {
+        TestItSuiteDelta delta = new TestItSuiteDelta(mongoConverter);
+        Document existing = toDocument(mongoConverter, existingDoc);
+        Document updated = toDocument(mongoConverter, newDoc);
+
+        delta.diffField(existing, updated, fieldName(mongoConverter, RCTestItData.class, "projectName"));
+        delta.diffField(existing, updated, fieldName(mongoConverter, RCTestItData.class, "projectPrefix"));
+        delta.diffSuiteList(delta.testSuitesField, existing.get(delta.testSuitesField), updated.get(delta.testSuitesField));
+        return delta;
+    }
+
+    /**
+     * Size of a document as it would be written to Mongo
+     */
+    static long bsonSize(MongoConverter mongoConverter, RCTestItData doc) {
+        return encode(toDocument(mongoConverter, doc)).length;
+    }
+
+    /**
+     * SHA-256 of the project name, prefix and suites of the document as encoded in BSON
+     */
+    static String contentHash(MongoConverter mongoConverter, RCTestItData doc) {
+        Document document = toDocument(mongoConverter, doc);
+        Document content = new Document();
+        for (String property : List.of("projectName", "projectPrefix", "testSuites")) {
+            String field = fieldName(mongoConverter, RCTestItData.class, property);
+            content.put(field, document.get(field));
+        }
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(encode(content)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * The document as written by the bulk upsert, i.e. including its content hash
+     */
+    static Document toStoredDocument(MongoConverter mongoConverter, RCTestItData doc) {
+        Document document = toDocument(mongoConverter, doc);
+        document.put(CONTENT_HASH_FIELD, contentHash(mongoConverter, doc));
+        return document;
+    }
+
+    boolean isEmpty() { return subtreesWritten == 0 && update.getUpdateObject().isEmpty(); }
+
+    Update getUpdate() { return update; }
+
+    int getSubtreesWritten() { return subtreesWritten; }
+
+    long getBytesWritten() { return bytesWritten; }
+
+    private void diffField(Document existing, Document updated, String field) {
+        Object newValue = updated.get(field);
+        if (!Objects.equals(existing.get(field), newValue)) {
+            update.set(field, newValue);
+            bytesWritten += newValue == null ? 0 : encode(new Document(field, newValue)).length;
+        }
+    }
+
+    private void diffSuiteList(String path, Object existingList, Object newList) {
+        if (existingList instanceof List<?> existingSuites && newList instanceof List<?> newSuites
+                && existingSuites.size() == newSuites.size()) {
+            for (int i = 0; i < newSuites.size(); i++) {
+                diffSuite(path + "." + i, existingSuites.get(i), newSuites.get(i));
+            }
+            return;
+        }
+        // Suites were added or removed at this level, so the whole list is rewritten
+        if (!Objects.equals(existingList, newList)) {
+            setSubtree(path, newList, encode(new Document(path, newList)));
+        }
+    }
+
+    private void diffSuite(String path, Object existingSuite, Object newSuite) {
+        if (!(existingSuite instanceof Document existing) || !(newSuite instanceof Document updated)) {
+            if (!Objects.equals(existingSuite, newSuite)) {
+                setSubtree(path, newSuite, newSuite instanceof Document doc ? encode(doc) : new byte[0]);
+            }
+            return;
+        }
+
+        byte[] newBytes = encode(updated);
+        if (Arrays.equals(encode(existing), newBytes)) {
+            return;
+        }
+        // Only the children differ: descend so unchanged siblings are not rewritten
+        if (sameOwnFields(existing, updated)) {
+            diffSuiteList(path + "." + childSuitesField, existing.get(childSuitesField), updated.get(childSuitesField));
+            return;
+        }
+        setSubtree(path, updated, newBytes);
+    }
+
+    private boolean sameOwnFields(Document existing, Document updated) {
+        if (!existing.keySet().equals(updated.keySet())) {
+            return false;
+        }
+        for (String key : existing.keySet()) {
+            if (!key.equals(childSuitesField) && !Objects.equals(existing.get(key), updated.get(key))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void setSubtree(String path, Object value, byte[] encoded) {
+        update.set(path, value);
+        subtreesWritten++;
+        bytesWritten += encoded.length;
+    }
+
+    private static Document toDocument(MongoConverter mongoConverter, RCTestItData doc) {
+        Document document = new Document();
+        mongoConverter.write(doc, document);
+        return document;
+    }
+
+    private static byte[] encode(Document document) {
+        BasicOutputBuffer buffer = new BasicOutputBuffer();
+        DOCUMENT_CODEC.encode(new BsonBinaryWriter(buffer), document, EncoderContext.builder().build());
+        return buffer.toByteArray();
+    }
+
+    static String fieldName(MongoConverter mongoConverter, Class<?> type, String property) {
+        return mongoConverter.getMappingContext()
+                .getRequiredPersistentEntity(type)
+                .getRequiredPersistentProperty(property)
+                .getFieldName();
+    }
+}
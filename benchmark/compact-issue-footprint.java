@@ -0,0 +1,113 @@
+package com.ringcentral.engagemetrics.schedular.benchmark;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ringcentral.engagemetrics.schedular.api.model.jira.CompactIssue;
+import com.ringcentral.engagemetrics.schedular.api.model.jira.IssueDictionary;
+import com.ringcentral.engagemetrics.schedular.api.model.jira.Issues;
+import com.ringcentral.engagemetrics.schedular.api.model.jira.Response;
+
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Reports the retained heap per issue of the extraction path, for issues kept as decoded {@link Issues}
+ * trees and as {@link CompactIssue}s. Pages are decoded from JSON one at a time, as the Feign client does.
+ * Runs from the test classpath and is not part of the scheduler.
+ * Usage: CompactIssueFootprint [issues] [historiesPerIssue]
+ */
+public class CompactIssueFootprint {
+
+    public static void main(String[] args) throws Exception {
+        int issues = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        int historiesPerIssue = args.length > 1 ? Integer.parseInt(args[1]) : 12;
+        int pageSize = 1000;
+        ObjectMapper mapper = new ObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+        long baseline = usedHeap();
+        List<Issues> fullIssues = new ArrayList<>(issues);
+        for (int startAt = 0; startAt < issues; startAt += pageSize) {
+            byte[] page = samplePage(startAt, Math.min(pageSize, issues - startAt), historiesPerIssue);
+            fullIssues.addAll(mapper.readValue(page, Response.class).getIssues());
+        }
+        long fullBytes = usedHeap() - baseline;
+
+        IssueDictionary dictionary = new IssueDictionary();
+        List<CompactIssue> compactIssues = new ArrayList<>(issues);
+        for (Issues issue : fullIssues) {
+            compactIssues.add(CompactIssue.of(issue, dictionary));
+        }
+        fullIssues = null;
+        long compactBytes = usedHeap() - baseline;
+
+        System.out.printf("issues=%d historiesPerIssue=%d dictionaryValues=%d%n", compactIssues.size(), historiesPerIssue, dictionary.size());
+        System.out.printf("%-8s totalHeap=%dMB bytesPerIssue=%d%n", "issues", fullBytes >> 20, fullBytes / issues);
+        System.out.printf("%-8s totalHeap=%dMB bytesPerIssue=%d%n", "compact", compactBytes >> 20, compactBytes / issues);
+        System.out.printf("reduction=%.1fx%n", (double) fullBytes / compactBytes);
+    }
+
+    private static long usedHeap() {
+        // A few rounds, so objects released in the previous step are really gone
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    /**
+     * A page of the search response with the fields requested by StoryTableThread and a full changelog
+     */
+    private static byte[] samplePage(int startAt, int issues, int historiesPerIssue) {
+        Random random = new Random(startAt);
+        String[] statuses = {"Open", "In Progress", "In Review", "Blocked", "Resolved", "Closed"};
+        String[] priorities = {"Low", "Medium", "High", "Critical"};
+        StringBuilder json = new StringBuilder("{\"startAt\":").append(startAt).append(",\"maxResults\":1000,\"issues\":[");
+        for (int i = 0; i < issues; i++) {
+            int number = startAt + i;
+            String assignee = "user" + random.nextInt(300);
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"expand\":\"operations,versionedRepresentations,editmeta,changelog,renderedFields\",\"id\":\"").append(100000 + number)
+                    .append("\",\"self\":\"https://jira.example.com/rest/api/2/issue/").append(100000 + number)
+                    .append("\",\"key\":\"PROJ-").append(number)
+                    .append("\",\"fields\":{\"status\":{\"id\":\"").append(10000 + random.nextInt(6)).append("\",\"name\":\"").append(statuses[random.nextInt(6)])
+                    .append("\"},\"assignee\":{\"name\":\"").append(assignee).append("\",\"key\":\"").append(assignee)
+                    .append("\"},\"priority\":{\"id\":\"").append(random.nextInt(4)).append("\",\"name\":\"").append(priorities[random.nextInt(4)])
+                    .append("\"},\"project\":{\"id\":\"10100\",\"key\":\"PROJ\",\"name\":\"Project\"}")
+                    .append(",\"created\":\"2024-0").append(1 + random.nextInt(9)).append("-1").append(random.nextInt(10)).append("T10:00:00.000+0000\"")
+                    .append(",\"updated\":\"2024-11-0").append(1 + random.nextInt(9)).append("T12:30:00.000+0000\"")
+                    .append(",\"duedate\":\"2024-12-1").append(random.nextInt(10)).append("\"")
+                    .append(",\"resolutiondate\":\"2024-10-2").append(random.nextInt(10)).append("T16:45:00.000+0000\"")
+                    .append(",\"customfield_10002\":\"").append(1 + random.nextInt(8)).append(".0\"")
+                    .append("},\"changelog\":{\"startAt\":0,\"maxResults\":").append(historiesPerIssue).append(",\"total\":").append(historiesPerIssue)
+                    .append(",\"histories\":[");
+            for (int h = 0; h < historiesPerIssue; h++) {
+                String author = "user" + random.nextInt(300);
+                if (h > 0) {
+                    json.append(',');
+                }
+                json.append("{\"id\":\"").append(1_000_000L + number * 100L + h)
+                        .append("\",\"author\":{\"self\":\"https://jira.example.com/rest/api/2/user?username=").append(author)
+                        .append("\",\"name\":\"").append(author).append("\",\"key\":\"").append(author)
+                        .append("\",\"emailAddress\":\"").append(author).append("@example.com\",\"displayName\":\"User ").append(author)
+                        .append("\",\"active\":true,\"timeZone\":\"Etc/UTC\"},\"created\":\"2024-10-").append(10 + h % 18)
+                        .append("T1").append(h % 10).append(":00:00.000+0000\",\"items\":[");
+                if (h % 3 == 2) {
+                    json.append("{\"field\":\"assignee\",\"fieldtype\":\"jira\",\"from\":null,\"fromString\":null,\"to\":\"")
+                            .append(assignee).append("\",\"toString\":\"").append(assignee).append("\"}");
+                } else {
+                    json.append("{\"field\":\"status\",\"fieldtype\":\"jira\",\"from\":\"").append(10000 + h % 6)
+                            .append("\",\"fromString\":\"").append(statuses[h % 6]).append("\",\"to\":\"").append(10000 + (h + 1) % 6)
+                            .append("\",\"toString\":\"").append(statuses[(h + 1) % 6]).append("\"}");
+                }
+                json.append("]}");
+            }
+            json.append("]}}");
+        }
+        return json.append("]}").toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,156 @@
+package com.ringcentral.engagemetrics.schedular.benchmark;
+
+import com.ringcentral.engagemetrics.schedular.api.config.JiraFeignTransportConfig;
+import com.sun.net.httpserver.HttpServer;
+import feign.Client;
+import feign.Request;
+import feign.Response;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compares Feign's default client with the OkHttp transport of {@link JiraFeignTransportConfig}, built with its
+ * default properties, against a local stand-in for the Jira search endpoint serving pages of issues with changelogs.
+ * Runs from the test classpath and is not part of the scheduler.
+ * Usage: JiraTransportBenchmark [requests] [issuesPerPage] [bandwidthMbps, 0 = unlimited]
+ */
+public class JiraTransportBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int requests = args.length > 0 ? Integer.parseInt(args[0]) : 50;
+        int issuesPerPage = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        int bandwidthMbps = args.length > 2 ? Integer.parseInt(args[2]) : 0;
+        // Without TCP_NODELAY the JDK server adds a ~40ms delayed-ACK stall to small responses
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+
+        byte[] page = samplePage(issuesPerPage);
+        byte[] gzippedPage = gzip(page);
+        AtomicLong bytesSent = new AtomicLong();
+        Set<Integer> clientPorts = Collections.synchronizedSet(new HashSet<>());
+
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/search", exchange -> {
+            clientPorts.add(exchange.getRemoteAddress().getPort());
+            String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+            boolean gzip = acceptEncoding != null && acceptEncoding.contains("gzip");
+            byte[] body = gzip ? gzippedPage : page;
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            if (gzip) {
+                exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+            }
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                write(out, body, bandwidthMbps);
+            }
+            bytesSent.addAndGet(body.length);
+        });
+        server.start();
+        String url = "http://127.0.0.1:" + server.getAddress().getPort() + "/search?jql=project%3DPROJ&startAt=0&maxResults=1000";
+
+        try {
+            JiraFeignTransportConfig transportConfig = new JiraFeignTransportConfig();
+            Duration connectTimeout = Duration.ofSeconds(10);
+            Duration readTimeout = Duration.ofSeconds(60);
+            Request.Options options = transportConfig.jiraRequestOptions(connectTimeout, readTimeout);
+            Map<String, Client> clients = new LinkedHashMap<>();
+            clients.put("feign-default", new Client.Default(null, null));
+            clients.put("okhttp-pooled", transportConfig.jiraOkHttpClient(10, Duration.ofMinutes(5), connectTimeout, readTimeout,
+                    new StaticListableBeanFactory().getBeanProvider(MeterRegistry.class)));
+
+            for (Map.Entry<String, Client> client : clients.entrySet()) {
+                // Warm up class loading and JIT before measuring
+                run(client.getValue(), options, url, 5);
+                bytesSent.set(0);
+                clientPorts.clear();
+
+                long start = System.nanoTime();
+                long bodyBytes = run(client.getValue(), options, url, requests);
+                long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+                System.out.printf("%-14s bandwidth=%s requests=%d time=%dms avg=%.1fms wireBytes=%d decodedBytes=%d connections=%d%n",
+                        client.getKey(), bandwidthMbps > 0 ? bandwidthMbps + "Mbps" : "unlimited", requests, elapsedMillis, (double) elapsedMillis / requests,
+                        bytesSent.get(), bodyBytes, clientPorts.size());
+            }
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    /**
+     * Writes the body, throttled to the given bandwidth to approximate a remote Jira instance
+     */
+    private static void write(OutputStream out, byte[] body, int bandwidthMbps) throws IOException {
+        if (bandwidthMbps <= 0) {
+            out.write(body);
+            return;
+        }
+        int chunk = 64 * 1024;
+        long nanosPerChunk = chunk * 8L * 1000 / bandwidthMbps;
+        for (int offset = 0; offset < body.length; offset += chunk) {
+            int length = Math.min(chunk, body.length - offset);
+            out.write(body, offset, length);
+            try {
+                TimeUnit.NANOSECONDS.sleep(nanosPerChunk * length / chunk);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException(e);
+            }
+        }
+    }
+
+    private static long run(Client client, Request.Options options, String url, int requests) throws IOException {
+        long bodyBytes = 0;
+        for (int i = 0; i < requests; i++) {
+            Request request = Request.create(Request.HttpMethod.GET, url, Map.of(), null, StandardCharsets.UTF_8, null);
+            try (Response response = client.execute(request, options); InputStream body = response.body().asInputStream()) {
+                bodyBytes += body.readAllBytes().length;
+            }
+        }
+        return bodyBytes;
+    }
+
+    private static byte[] samplePage(int issues) {
+        StringBuilder json = new StringBuilder("{\"startAt\":0,\"maxResults\":1000,\"total\":").append(issues).append(",\"issues\":[");
+        Random random = new Random(42);
+        String[] statuses = {"Open", "In Progress", "In Review", "Blocked", "Done"};
+        for (int i = 0; i < issues; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"key\":\"PROJ-").append(i).append("\",\"fields\":{\"status\":{\"id\":\"").append(random.nextInt(10))
+                    .append("\"},\"assignee\":{\"name\":\"user").append(random.nextInt(40))
+                    .append("\"},\"created\":\"2024-01-01T10:00:00.000+0000\",\"project\":{\"key\":\"PROJ\"}},\"changelog\":{\"histories\":[");
+            for (int h = 0; h < 6; h++) {
+                if (h > 0) {
+                    json.append(',');
+                }
+                json.append("{\"id\":\"").append(100000 + i * 10 + h).append("\",\"created\":\"2024-01-0").append(h + 2)
+                        .append("T10:00:00.000+0000\",\"items\":[{\"field\":\"status\",\"fromString\":\"")
+                        .append(statuses[h % statuses.length]).append("\",\"toString\":\"")
+                        .append(statuses[(h + 1) % statuses.length]).append("\"}]}");
+            }
+            json.append("]}}");
+        }
+        return json.append("]}").toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] gzip(byte[] data) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(bytes)) {
+            out.write(data);
+        }
+        return bytes.toByteArray();
+    }
+}
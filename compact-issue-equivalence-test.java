@@ -0,0 +1,285 @@
+package com.ringcentral.engagemetrics.schedular.api.services;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ringcentral.engagemetrics.schedular.api.model.jira.CompactIssue;
+import com.ringcentral.engagemetrics.schedular.api.model.jira.Fields;
+import com.ringcentral.engagemetrics.schedular.api.model.jira.History;
+import com.ringcentral.engagemetrics.schedular.api.model.jira.HistoryItem;
+import com.ringcentral.engagemetrics.schedular.api.model.jira.IssueDictionary;
+import com.ringcentral.engagemetrics.schedular.api.model.jira.Issues;
+import com.ringcentral.engagemetrics.schedular.utils.CSVExporter;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVPrinter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks that the extraction path on {@link CompactIssue}s yields the same metrics, CSV and aggregates
+ * as the same issues kept as {@link Issues}, and the same dates, durations and CSV columns as the
+ * calculator and exporter before status breakdowns and compact issues were added
+ */
+class CompactIssueEquivalenceTests {
+
+	private static final String[] STATUSES = {"Open", "In Progress", "In Review", "Blocked", "Resolved", "Closed", "Done", "Reopened"};
+	private static final String[] OFFSETS = {"+0000", "+0530", "-0700", "+0100", "+0200"};
+	private static final ObjectMapper MAPPER = new ObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+	private final Random random = new Random(7);
+
+	@TempDir
+	Path tempDir;
+
+	@Test
+	void compactIssuesMatchFullIssues() throws Exception {
+		List<Issues> issues = new ArrayList<>();
+		for (int i = 0; i < 3000; i++) {
+			issues.add(randomIssue("PROJ-" + i));
+		}
+		DevelopmentTimeCalculator calculator = new DevelopmentTimeCalculator();
+		IssueDictionary dictionary = new IssueDictionary();
+		List<CompactIssue> compactIssues = new ArrayList<>();
+		DevelopmentMetricsAggregator.Snapshot fullAggregates = new DevelopmentMetricsAggregator.Snapshot();
+		DevelopmentMetricsAggregator.Snapshot compactAggregates = new DevelopmentMetricsAggregator.Snapshot();
+
+		for (Issues issue : issues) {
+			CompactIssue compactIssue = CompactIssue.of(issue, dictionary);
+			compactIssues.add(compactIssue);
+			DevelopmentTimeCalculator.DevelopmentMetrics fullMetrics = calculator.calculateDevelopmentMetrics(issue);
+			DevelopmentTimeCalculator.DevelopmentMetrics compactMetrics = calculator.calculateDevelopmentMetrics(compactIssue);
+			assertEquals(summary(fullMetrics), summary(compactMetrics), issue.getKey());
+			fullAggregates.record(issue, fullMetrics);
+			compactAggregates.record(compactIssue, compactMetrics);
+		}
+		for (DevelopmentMetricsAggregator.MonthBasis basis : DevelopmentMetricsAggregator.MonthBasis.values()) {
+			assertEquals(fullAggregates.getAggregates(basis, null, true), compactAggregates.getAggregates(basis, null, true));
+		}
+
+		// Resolved issues only, so time in a still open status does not depend on when each file is written
+		List<Issues> exported = new ArrayList<>();
+		List<CompactIssue> compactExported = new ArrayList<>();
+		for (int i = 0; i < issues.size(); i++) {
+			Fields fields = issues.get(i).getFields();
+			if (fields.getCreated() != null && fields.getResolutionDate() != null) {
+				exported.add(issues.get(i));
+				compactExported.add(compactIssues.get(i));
+			}
+		}
+		Path fullCsv = tempDir.resolve("full.csv");
+		Path compactCsv = tempDir.resolve("compact.csv");
+		CSVExporter.exportStoriesToCSV(exported, fullCsv.toString(), true, null, calculator);
+		CSVExporter.exportCompactStoriesToCSV(compactExported, compactCsv.toString(), true, null, calculator);
+		assertArrayEquals(Files.readAllBytes(fullCsv), Files.readAllBytes(compactCsv));
+	}
+
+	@Test
+	void compactIssuesMatchPreviousCalculatorAndCsv() throws Exception {
+		DevelopmentTimeCalculator calculator = new DevelopmentTimeCalculator();
+		IssueDictionary dictionary = new IssueDictionary();
+		List<Issues> exported = new ArrayList<>();
+		List<CompactIssue> compactExported = new ArrayList<>();
+		for (int i = 0; i < 3000; i++) {
+			Issues issue = randomIssue("PROJ-" + i);
+			CompactIssue compactIssue = CompactIssue.of(issue, dictionary);
+			if (issue.getFields().getCreated() == null) {
+				// The previous calculator failed on these before reaching the changelog
+				continue;
+			}
+			assertEquals(PreviousCalculator.summary(issue), baseSummary(calculator.calculateDevelopmentMetrics(compactIssue)), issue.getKey());
+			if (issue.getFields().getResolutionDate() != null) {
+				exported.add(issue);
+				compactExported.add(compactIssue);
+			}
+		}
+
+		Path previousCsv = tempDir.resolve("previous.csv");
+		Path compactCsv = tempDir.resolve("compact.csv");
+		PreviousCalculator.exportStoriesToCSV(exported, previousCsv);
+		CSVExporter.exportCompactStoriesToCSV(compactExported, compactCsv.toString(), false, null, calculator);
+		assertEquals(Files.readAllLines(previousCsv), Files.readAllLines(compactCsv));
+	}
+
+	@Test
+	void malformedDatesOnlyCostTheIssueItsMetrics() throws Exception {
+		Map<String, Object> fields = Map.of("created", "2024-01-01T10:00:00.000+0000", "updated", "yesterday", "duedate", "2024-13-40");
+		Map<String, Object> statusChange = Map.of("field", "status", "fromString", "Open", "toString", "In Progress");
+		Issues issue = issue("PROJ-1", fields, List.of(Map.of("id", "1", "created", "2024-02-30T10:00:00", "items", List.of(statusChange))));
+
+		CompactIssue compactIssue = CompactIssue.of(issue, new IssueDictionary());
+
+		assertEquals("yesterday", compactIssue.getUpdated());
+		assertEquals("2024-13-40", compactIssue.getDuedate());
+		assertEquals("2024-01-01T10:00:00.000+0000", compactIssue.getCreated());
+		assertFalse(compactIssue.hasChangelog());
+		DevelopmentTimeCalculator.DevelopmentMetrics metrics = new DevelopmentTimeCalculator().calculateDevelopmentMetrics(compactIssue);
+		assertEquals("2024-01-01T10:00:00.000+0000", metrics.getCreatedDate());
+		assertNull(metrics.getInProgressDate());
+
+		Path csv = tempDir.resolve("malformed.csv");
+		CSVExporter.exportCompactStoriesToCSV(List.of(compactIssue, CompactIssue.of(randomIssue("PROJ-2"), new IssueDictionary())),
+				csv.toString(), false, null, new DevelopmentTimeCalculator());
+		assertEquals(3, Files.readAllLines(csv).size());
+	}
+
+	/**
+	 * An issue with random fields and changelog, decoded from JSON like a search response page
+	 */
+	private Issues randomIssue(String key) {
+		Map<String, Object> fields = new HashMap<>();
+		if (random.nextInt(20) > 0) {
+			fields.put("created", timestamp());
+		}
+		if (random.nextBoolean()) {
+			fields.put("updated", timestamp());
+		}
+		if (random.nextBoolean()) {
+			fields.put("duedate", "2024-12-0" + (1 + random.nextInt(9)));
+		}
+		if (random.nextBoolean()) {
+			fields.put("resolutiondate", timestamp());
+		}
+		if (random.nextBoolean()) {
+			fields.put("customfield_10002", String.valueOf(random.nextInt(8)));
+		}
+		if (random.nextBoolean()) {
+			fields.put("assignee", Map.of("name", "user" + random.nextInt(9)));
+		}
+		if (random.nextBoolean()) {
+			fields.put("status", Map.of("id", String.valueOf(random.nextInt(9)), "name", STATUSES[random.nextInt(STATUSES.length)]));
+		}
+		if (random.nextBoolean()) {
+			fields.put("priority", Map.of("name", "High"));
+		}
+		fields.put("project", Map.of("key", "PROJ"));
+
+		List<Map<String, Object>> histories = new ArrayList<>();
+		for (int h = random.nextInt(10); h > 0; h--) {
+			List<Map<String, Object>> items = new ArrayList<>();
+			for (int i = random.nextInt(3); i >= 0; i--) {
+				Map<String, Object> item = new HashMap<>();
+				item.put("field", random.nextInt(4) == 0 ? "assignee" : "status");
+				item.put("fromString", random.nextInt(6) == 0 ? null : STATUSES[random.nextInt(STATUSES.length)]);
+				item.put("toString", random.nextInt(12) == 0 ? null : STATUSES[random.nextInt(STATUSES.length)]);
+				items.add(item);
+			}
+			histories.add(Map.of("id", String.valueOf(1000 + random.nextInt(100_000)), "created", timestamp(), "items", items));
+		}
+		return issue(key, fields, histories);
+	}
+
+	private static Issues issue(String key, Map<String, Object> fields, List<Map<String, Object>> histories) {
+		Map<String, Object> issue = Map.of("key", key, "fields", fields, "changelog", Map.of("histories", histories));
+		return MAPPER.convertValue(issue, Issues.class);
+	}
+
+	private String timestamp() {
+		return String.format("2024-%02d-%02dT%02d:%02d:%02d.%03d%s", 1 + random.nextInt(12), 1 + random.nextInt(28),
+				random.nextInt(24), random.nextInt(60), random.nextInt(60), random.nextInt(1000), OFFSETS[random.nextInt(OFFSETS.length)]);
+	}
+
+	private static String baseSummary(DevelopmentTimeCalculator.DevelopmentMetrics metrics) {
+		return String.join("|", metrics.getCreatedDate(), metrics.getOpenDate(), metrics.getInProgressDate(), metrics.getClosedDate(),
+				String.valueOf(metrics.getTimeToStart()), String.valueOf(metrics.getDevelopmentTime()), String.valueOf(metrics.getTotalLeadTime()));
+	}
+
+	private static String summary(DevelopmentTimeCalculator.DevelopmentMetrics metrics) {
+		return String.join("|", metrics.getCreatedDate(), metrics.getOpenDate(), metrics.getInProgressDate(), metrics.getClosedDate(),
+				String.valueOf(metrics.getTimeToStart()), String.valueOf(metrics.getDevelopmentTime()), String.valueOf(metrics.getTotalLeadTime()),
+				metrics.getStatusBreakdown().toSummary(), String.valueOf(metrics.getStatusBreakdown().getReopenCount()),
+				String.valueOf(metrics.getStatusBreakdown().getReturnCount()));
+	}
+
+	/**
+	 * The development metrics and CSV rows as computed before status breakdowns and compact issues were added,
+	 * kept verbatim as the golden reference
+	 */
+	private static final class PreviousCalculator {
+		private static final DateTimeFormatter JIRA_DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSSZ");
+
+		static String summary(Issues issue) {
+			String createdDate = issue.getFields().getCreated();
+			String openDate = null, inProgressDate = null, closedDate = null;
+			Long timeToStart = null, developmentTime = null, totalLeadTime = null;
+			if (issue.getChangelog() != null && issue.getChangelog().getHistories() != null) {
+				List<History> sortedHistories = new ArrayList<>(issue.getChangelog().getHistories());
+				sortedHistories.sort(Comparator.comparing(History::getCreated));
+				for (History history : sortedHistories) {
+					for (HistoryItem item : history.getItems()) {
+						if ("status".equals(item.getField()) && item.getToString() != null) {
+							String newStatus = item.getToString();
+							if ("Open".equals(newStatus) && openDate == null) {
+								openDate = history.getCreated();
+							}
+							if ("In Progress".equals(newStatus) && inProgressDate == null) {
+								inProgressDate = history.getCreated();
+							}
+							if (("Closed".equals(newStatus) || "Resolved".equals(newStatus) || "Done".equals(newStatus)) && closedDate == null) {
+								closedDate = history.getCreated();
+							}
+						}
+					}
+				}
+				if (inProgressDate != null) {
+					timeToStart = hoursBetween(createdDate, inProgressDate);
+				}
+				if (inProgressDate != null && closedDate != null) {
+					developmentTime = hoursBetween(inProgressDate, closedDate);
+				}
+				if (closedDate != null) {
+					totalLeadTime = hoursBetween(createdDate, closedDate);
+				}
+			}
+			return String.join("|", createdDate, openDate, inProgressDate, closedDate,
+					String.valueOf(timeToStart), String.valueOf(developmentTime), String.valueOf(totalLeadTime));
+		}
+
+		static void exportStoriesToCSV(List<Issues> issues, Path filePath) throws Exception {
+			try (BufferedWriter writer = Files.newBufferedWriter(filePath);
+				 CSVPrinter csvPrinter = new CSVPrinter(writer, CSVFormat.DEFAULT.withHeader("User Story Key", "Status Id", "Assignee",
+						 "Created", "Due Date", "Updated", "Story Points", "Project ID", "Priority", "Created Month", "Resolved Month",
+						 "Year", "Total Lead Time (hrs)", "Time to Start (hrs)", "Development Time (hrs)", "First Open Date",
+						 "First In Progress Date", "Closed Date"))) {
+				for (Issues issue : issues) {
+					Fields fields = issue.getFields();
+					String created = fields.getCreated();
+					String resolvedDate = fields.getResolutionDate() != null ? fields.getResolutionDate() : "";
+					String[] metrics = summary(issue).split("\\|", -1);
+					csvPrinter.printRecord(issue.getKey(),
+							fields.getStatus() != null && fields.getStatus().getId() != null ? fields.getStatus().getId() : "",
+							fields.getAssignee() != null ? fields.getAssignee().getName() : "",
+							created, fields.getDuedate(), fields.getUpdated(), fields.getStoryPoint(),
+							fields.getProject() != null ? fields.getProject().getKey() : "",
+							fields.getPriority() != null ? fields.getPriority().getName() : "",
+							!created.isEmpty() ? LocalDateTime.parse(created, JIRA_DATE_FORMAT).getMonth().name().substring(0, 3) : "",
+							!resolvedDate.isEmpty() ? LocalDateTime.parse(resolvedDate, JIRA_DATE_FORMAT).getMonth().name().substring(0, 3) : "",
+							!resolvedDate.isEmpty() ? String.valueOf(LocalDateTime.parse(resolvedDate, JIRA_DATE_FORMAT).getYear()) : "",
+							nullable(metrics[6]), nullable(metrics[4]), nullable(metrics[5]),
+							nullable(metrics[1]), nullable(metrics[2]), nullable(metrics[3]));
+				}
+			}
+		}
+
+		private static long hoursBetween(String from, String to) {
+			return Duration.between(LocalDateTime.parse(from, JIRA_DATE_FORMAT), LocalDateTime.parse(to, JIRA_DATE_FORMAT)).toHours();
+		}
+
+		private static String nullable(String value) {
+			return "null".equals(value) ? null : value;
+		}
+	}
+}
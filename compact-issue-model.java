@@ -0,0 +1,225 @@
+package com.ringcentral.engagemetrics.schedular.api.model.jira;
+
+import com.ringcentral.engagemetrics.schedular.utils.JiraTimestamps;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * Interns the categorical values of compact issues (status ids and names, assignees, priorities,
+ * projects, story points) and hands out dense int codes, so every distinct value is stored once.
+ */
+public class IssueDictionary {
+    public static final int NONE = -1;
+
+    private final Map<String, Integer> codes = new HashMap<>();
+    private String[] values = new String[64];
+
+    public synchronized int encode(String value) {
+        if (value == null) {
+            return NONE;
+        }
+        Integer code = codes.get(value);
+        if (code != null) {
+            return code;
+        }
+        int next = codes.size();
+        if (next == values.length) {
+            values = Arrays.copyOf(values, next * 2);
+        }
+        values[next] = value;
+        codes.put(value, next);
+        return next;
+    }
+
+    public synchronized String decode(int code) {
+        return code == NONE ? null : values[code];
+    }
+
+    public synchronized int size() {
+        return codes.size();
+    }
+}
+
+/**
+ * Memory-compact, read-only form of an {@link Issues} for the extraction path. Categorical fields are
+ * {@link IssueDictionary} codes, timestamps are packed {@link JiraTimestamps} (the due date an epoch day),
+ * and the changelog is reduced to its status transitions in chronological order, two longs each:
+ * the time, then the from/to codes. Malformed dates never fail the conversion: their original text is
+ * kept for the export, and an issue with a malformed created, resolution or history date gets no
+ * transitions, so only its development metrics are lost.
+ */
+public final class CompactIssue {
+    private static final Logger logger = LoggerFactory.getLogger(CompactIssue.class);
+    private static final String STATUS_FIELD = "status";
+
+    private final IssueDictionary dictionary;
+    private final String key;
+    private final int statusId;
+    private final int statusName;
+    private final int assignee;
+    private final int priority;
+    private final int project;
+    private final int storyPoint;
+    private final long created;
+    private final long updated;
+    private final long duedate;         // epoch day; Jira due dates carry no time
+    private final long resolutionDate;
+    private final long latestHistoryId;
+    private final long[] transitions;   // null when the issue was fetched without a changelog
+    private Map<String, String> unparsedDates;  // field -> original text of dates that did not parse, usually null
+
+    private CompactIssue(IssueDictionary dictionary, Issues issue) {
+        Fields fields = issue.getFields();
+        this.dictionary = dictionary;
+        this.key = issue.getKey();
+        this.statusId = fields.getStatus() != null ? dictionary.encode(fields.getStatus().getId()) : IssueDictionary.NONE;
+        this.statusName = fields.getStatus() != null ? dictionary.encode(fields.getStatus().getName()) : IssueDictionary.NONE;
+        this.assignee = fields.getAssignee() != null ? dictionary.encode(fields.getAssignee().getName()) : IssueDictionary.NONE;
+        this.priority = fields.getPriority() != null ? dictionary.encode(fields.getPriority().getName()) : IssueDictionary.NONE;
+        this.project = fields.getProject() != null ? dictionary.encode(fields.getProject().getKey()) : IssueDictionary.NONE;
+        this.storyPoint = dictionary.encode(fields.getStoryPoint());
+        this.created = parseTimestamp("created", fields.getCreated());
+        this.updated = parseTimestamp("updated", fields.getUpdated());
+        this.duedate = parseDate("duedate", fields.getDuedate());
+        this.resolutionDate = parseTimestamp("resolutiondate", fields.getResolutionDate());
+
+        Changelog changelog = issue.getChangelog();
+        if (changelog == null || changelog.getHistories() == null) {
+            this.latestHistoryId = -1L;
+            this.transitions = null;
+            return;
+        }
+        List<History> histories = new ArrayList<>(changelog.getHistories());
+        histories.sort(Comparator.comparing(History::getCreated, Comparator.nullsLast(Comparator.naturalOrder())));
+        boolean malformed = isUnparsed("created") || isUnparsed("resolutiondate");
+        long latestId = -1L;
+        long[] packed = new long[8];
+        int size = 0;
+        for (History history : histories) {
+            latestId = Math.max(latestId, parseId(history.getId()));
+            if (history.getItems() == null) {
+                continue;
+            }
+            long changedAt = JiraTimestamps.ABSENT;
+            for (HistoryItem item : history.getItems()) {
+                if (!STATUS_FIELD.equals(item.getField()) || item.getToString() == null) {
+                    continue;
+                }
+                if (changedAt == JiraTimestamps.ABSENT) {
+                    String field = "history " + history.getId();
+                    changedAt = history.getCreated() != null ? parseTimestamp(field, history.getCreated()) : unparsed(field, null);
+                    malformed |= changedAt == JiraTimestamps.ABSENT;
+                }
+                if (size == packed.length) {
+                    packed = Arrays.copyOf(packed, size * 2);
+                }
+                packed[size++] = changedAt;
+                packed[size++] = ((long) dictionary.encode(item.getFromString()) << 32)
+                        | (dictionary.encode(item.getToString()) & 0xFFFFFFFFL);
+            }
+        }
+        this.latestHistoryId = latestId;
+        if (malformed) {
+            logger.warn("Issue {} has malformed dates {}, its development metrics are skipped", key, unparsedDates);
+            this.transitions = null;
+        } else {
+            this.transitions = Arrays.copyOf(packed, size);
+        }
+    }
+
+    public static CompactIssue of(Issues issue, IssueDictionary dictionary) {
+        return new CompactIssue(dictionary, issue);
+    }
+
+    private long parseTimestamp(String field, String text) {
+        try {
+            return JiraTimestamps.parse(text);
+        } catch (DateTimeException e) {
+            return unparsed(field, text);
+        }
+    }
+
+    private long parseDate(String field, String text) {
+        if (text == null || text.isEmpty()) {
+            return JiraTimestamps.ABSENT;
+        }
+        try {
+            return LocalDate.parse(text).toEpochDay();
+        } catch (DateTimeException e) {
+            return unparsed(field, text);
+        }
+    }
+
+    private long unparsed(String field, String text) {
+        if (unparsedDates == null) {
+            unparsedDates = new HashMap<>(4);
+        }
+        unparsedDates.put(field, text);
+        return JiraTimestamps.ABSENT;
+    }
+
+    private boolean isUnparsed(String field) {
+        return unparsedDates != null && unparsedDates.containsKey(field);
+    }
+
+    private String text(String field, String parsed) {
+        return isUnparsed(field) ? unparsedDates.get(field) : parsed;
+    }
+
+    private static long parseId(String id) {
+        try {
+            return id != null ? Long.parseLong(id) : -1L;
+        } catch (NumberFormatException e) {
+            return -1L;
+        }
+    }
+
+    public String getKey() { return key; }
+
+    public String getStatusId() { return dictionary.decode(statusId); }
+
+    public String getStatusName() { return dictionary.decode(statusName); }
+
+    public String getAssigneeName() { return dictionary.decode(assignee); }
+
+    public String getPriorityName() { return dictionary.decode(priority); }
+
+    public String getProjectKey() { return dictionary.decode(project); }
+
+    public String getStoryPoint() { return dictionary.decode(storyPoint); }
+
+    // Packed timestamps, JiraTimestamps.ABSENT when missing
+    public long getCreatedAt() { return created; }
+
+    public long getUpdatedAt() { return updated; }
+
+    public long getResolutionDateAt() { return resolutionDate; }
+
+    // Timestamps in their original Jira text form, null when missing
+    public String getCreated() { return text("created", JiraTimestamps.format(created)); }
+
+    public String getUpdated() { return text("updated", JiraTimestamps.format(updated)); }
+
+    public String getDuedate() { return text("duedate", duedate == JiraTimestamps.ABSENT ? null : LocalDate.ofEpochDay(duedate).toString()); }
+
+    public String getResolutionDate() { return text("resolutiondate", JiraTimestamps.format(resolutionDate)); }
+
+    /**
+     * Highest changelog history id, -1 when there is none
+     */
+    public long getLatestHistoryId() { return latestHistoryId; }
+
+    public boolean hasChangelog() { return transitions != null; }
+
+    public int getTransitionCount() { return transitions == null ? 0 : transitions.length / 2; }
+
+    public long getTransitionAt(int index) { return transitions[2 * index]; }
+
+    public String getTransitionFrom(int index) { return dictionary.decode((int) (transitions[2 * index + 1] >> 32)); }
+
+    public String getTransitionTo(int index) { return dictionary.decode((int) transitions[2 * index + 1]); }
+}
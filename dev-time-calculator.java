@@ -1,21 +1,21 @@
 package com.ringcentral.engagemetrics.schedular.api.services;
 
+import com.ringcentral.engagemetrics.schedular.api.model.jira.CompactIssue;
 import com.ringcentral.engagemetrics.schedular.api.model.jira.History;
 import com.ringcentral.engagemetrics.schedular.api.model.jira.HistoryItem;
 import com.ringcentral.engagemetrics.schedular.api.model.jira.Issues;
+import com.ringcentral.engagemetrics.schedular.utils.JiraTimestamps;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import java.time.Duration;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.io.Serializable;
 import java.util.*;
 
 @Service
 public class DevelopmentTimeCalculator {
     private final Logger logger = LoggerFactory.getLogger(DevelopmentTimeCalculator.class);
-    private static final DateTimeFormatter JIRA_DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSSZ");
     
     // Constants for status transitions
     private static final String STATUS_FIELD = "status";
@@ -24,11 +24,50 @@ public class DevelopmentTimeCalculator {
     private static final String CLOSED_STATUS = "Closed";
     private static final String RESOLVED_STATUS = "Resolved";
     private static final String DONE_STATUS = "Done";
+    // Stages of the usual workflow by status keyword; a move to a status of an earlier stage counts as a return
+    private static final Map<String, Integer> WORKFLOW_STAGES = Map.of(
+            "open", 0, "to do", 0, "in progress", 1, "review", 2, "resolved", 3, "closed", 3, "done", 3);
+    private static final String BLOCKED_KEYWORD = "block";
+    private static final String REVIEW_KEYWORD = "review";
 
     /**
-     * Calculate development metrics for an issue
+     * Version of the metrics logic; bump it whenever a change alters the metrics of an unchanged issue,
+     * so metrics cached by the previous logic are discarded
+     */
+    public static final int LOGIC_VERSION = 2;
+
+    private final DevelopmentMetricsCache metricsCache;
+
+    public DevelopmentTimeCalculator() {
+        this(null);
+    }
+
+    @Autowired
+    public DevelopmentTimeCalculator(DevelopmentMetricsCache metricsCache) {
+        this.metricsCache = metricsCache;
+    }
+
+    /**
+     * Calculate development metrics for an issue, reusing cached metrics when the issue is unchanged
      */
     public DevelopmentMetrics calculateDevelopmentMetrics(Issues issue) {
+        if (metricsCache == null) {
+            return computeDevelopmentMetrics(issue);
+        }
+        return metricsCache.getOrCompute(issue, this::computeDevelopmentMetrics);
+    }
+
+    /**
+     * Calculate development metrics for a compact issue, without parsing any timestamps
+     */
+    public DevelopmentMetrics calculateDevelopmentMetrics(CompactIssue issue) {
+        if (metricsCache == null) {
+            return computeDevelopmentMetrics(issue);
+        }
+        return metricsCache.getOrCompute(issue, this::computeDevelopmentMetrics);
+    }
+
+    private DevelopmentMetrics computeDevelopmentMetrics(Issues issue) {
         DevelopmentMetrics metrics = new DevelopmentMetrics();
         
         try {
@@ -46,76 +85,173 @@ public class DevelopmentTimeCalculator {
             sortedHistories.sort(Comparator.comparing(History::getCreated));
             
             // Process each history to track status transitions
-            processStatusTransitions(sortedHistories, metrics);
+            String currentStatus = issue.getFields().getStatus() != null ? issue.getFields().getStatus().getName() : null;
+            StatusTransitions transitions = new StatusTransitions(metrics, JiraTimestamps.parse(createdDate),
+                    JiraTimestamps.parse(issue.getFields().getResolutionDate()), currentStatus);
+            for (History history : sortedHistories) {
+                for (HistoryItem item : history.getItems()) {
+                    // Only process status field changes
+                    if (STATUS_FIELD.equals(item.getField()) && item.getToString() != null) {
+                        transitions.apply(item.getFromString(), item.getToString(), JiraTimestamps.parse(history.getCreated()));
+                    }
+                }
+            }
             
             // Calculate durations between key events
-            calculateDurations(metrics);
+            transitions.complete();
             
         } catch (Exception e) {
             logger.error("Error calculating development metrics for issue: {}", issue.getKey(), e);
+            metrics.setIncomplete(true);
         }
         
         return metrics;
     }
     
-    private void processStatusTransitions(List<History> histories, DevelopmentMetrics metrics) {
-        Set<String> processedStatuses = new HashSet<>();
-        
-        for (History history : histories) {
-            for (HistoryItem item : history.getItems()) {
-                // Only process status field changes
-                if (STATUS_FIELD.equals(item.getField()) && item.getToString() != null) {
-                    String newStatus = item.getToString();
-                    
-                    // First Open status
-                    if (OPEN_STATUS.equals(newStatus) && !processedStatuses.contains(OPEN_STATUS)) {
-                        metrics.setOpenDate(history.getCreated());
-                        processedStatuses.add(OPEN_STATUS);
-                    }
-                    
-                    // First In Progress status
-                    if (IN_PROGRESS_STATUS.equals(newStatus) && !processedStatuses.contains(IN_PROGRESS_STATUS)) {
-                        metrics.setInProgressDate(history.getCreated());
-                        processedStatuses.add(IN_PROGRESS_STATUS);
-                    }
-                    
-                    // Check for completion statuses (could be any of these)
-                    if ((CLOSED_STATUS.equals(newStatus) || RESOLVED_STATUS.equals(newStatus) || 
-                         DONE_STATUS.equals(newStatus)) && metrics.getClosedDate() == null) {
-                        metrics.setClosedDate(history.getCreated());
-                    }
-                }
+    private DevelopmentMetrics computeDevelopmentMetrics(CompactIssue issue) {
+        DevelopmentMetrics metrics = new DevelopmentMetrics();
+        
+        try {
+            metrics.setCreatedDate(issue.getCreated());
+            
+            if (!issue.hasChangelog()) {
+                logger.warn("No changelog available for issue: {}", issue.getKey());
+                return metrics;
+            }
+            
+            // Transitions are already status changes only, oldest first
+            StatusTransitions transitions = new StatusTransitions(metrics, issue.getCreatedAt(), issue.getResolutionDateAt(),
+                    issue.getStatusName());
+            for (int i = 0; i < issue.getTransitionCount(); i++) {
+                transitions.apply(issue.getTransitionFrom(i), issue.getTransitionTo(i), issue.getTransitionAt(i));
             }
+            transitions.complete();
+            
+        } catch (Exception e) {
+            logger.error("Error calculating development metrics for issue: {}", issue.getKey(), e);
+            metrics.setIncomplete(true);
         }
+        
+        return metrics;
     }
     
-    private void calculateDurations(DevelopmentMetrics metrics) {
-        // Calculate time to start (from created to in progress)
-        if (metrics.getCreatedDate() != null && metrics.getInProgressDate() != null) {
-            LocalDateTime createdTime = LocalDateTime.parse(metrics.getCreatedDate(), JIRA_DATE_FORMAT);
-            LocalDateTime inProgressTime = LocalDateTime.parse(metrics.getInProgressDate(), JIRA_DATE_FORMAT);
-            metrics.setTimeToStart(Duration.between(createdTime, inProgressTime).toHours());
+    /**
+     * Walks the status transitions of one issue in chronological order, tracking the first Open,
+     * In Progress and completion times and the time spent in each status. Timestamps are packed
+     * JiraTimestamps, so both issue representations share this logic.
+     */
+    private static class StatusTransitions {
+        private final DevelopmentMetrics metrics;
+        private final StatusTimeBreakdown breakdown;
+        private final long createdAt;
+        private final long resolvedAt;
+        private final String issueStatus;
+        private long openAt = JiraTimestamps.ABSENT;
+        private long inProgressAt = JiraTimestamps.ABSENT;
+        private long closedAt = JiraTimestamps.ABSENT;
+        
+        // Time spent in each status is accumulated in the same pass, starting from the issue creation
+        private String currentStatus;
+        private long enteredAt;
+        
+        /**
+         * @param issueStatus name of the issue's current status, the status held since creation when no transition is applied
+         */
+        StatusTransitions(DevelopmentMetrics metrics, long createdAt, long resolvedAt, String issueStatus) {
+            this.metrics = metrics;
+            this.breakdown = metrics.getStatusBreakdown();
+            this.createdAt = createdAt;
+            this.resolvedAt = resolvedAt;
+            this.issueStatus = issueStatus;
+            this.enteredAt = createdAt;
         }
         
-        // Calculate development time (from in progress to closed)
-        if (metrics.getInProgressDate() != null && metrics.getClosedDate() != null) {
-            LocalDateTime inProgressTime = LocalDateTime.parse(metrics.getInProgressDate(), JIRA_DATE_FORMAT);
-            LocalDateTime closedTime = LocalDateTime.parse(metrics.getClosedDate(), JIRA_DATE_FORMAT);
-            metrics.setDevelopmentTime(Duration.between(inProgressTime, closedTime).toHours());
+        void apply(String fromStatus, String newStatus, long changedAt) {
+            // The status held before the first transition is only known from its "from" side
+            if (currentStatus == null) {
+                currentStatus = fromStatus;
+                if (currentStatus != null) {
+                    breakdown.visit(currentStatus);
+                }
+            }
+            long changedMillis = JiraTimestamps.epochMillis(changedAt);
+            if (currentStatus != null && enteredAt != JiraTimestamps.ABSENT && changedMillis >= JiraTimestamps.epochMillis(enteredAt)) {
+                breakdown.add(currentStatus, changedMillis - JiraTimestamps.epochMillis(enteredAt));
+            }
+            breakdown.transitionTo(newStatus);
+            currentStatus = newStatus;
+            enteredAt = changedAt;
+            
+            // First Open status
+            if (OPEN_STATUS.equals(newStatus) && openAt == JiraTimestamps.ABSENT) {
+                openAt = changedAt;
+            }
+            
+            // First In Progress status
+            if (IN_PROGRESS_STATUS.equals(newStatus) && inProgressAt == JiraTimestamps.ABSENT) {
+                inProgressAt = changedAt;
+            }
+            
+            // Check for completion statuses (could be any of these)
+            if (isCompletionStatus(newStatus) && closedAt == JiraTimestamps.ABSENT) {
+                closedAt = changedAt;
+            }
         }
         
-        // Calculate total lead time (from created to closed)
-        if (metrics.getCreatedDate() != null && metrics.getClosedDate() != null) {
-            LocalDateTime createdTime = LocalDateTime.parse(metrics.getCreatedDate(), JIRA_DATE_FORMAT);
-            LocalDateTime closedTime = LocalDateTime.parse(metrics.getClosedDate(), JIRA_DATE_FORMAT);
-            metrics.setTotalLeadTime(Duration.between(createdTime, closedTime).toHours());
+        void complete() {
+            // An issue that never changed status has been in its current status since it was created
+            if (currentStatus == null && issueStatus != null) {
+                currentStatus = issueStatus;
+                breakdown.visit(currentStatus);
+            }
+            // The status held now has no outgoing transition: close it at the resolution time,
+            // or leave it open so it keeps counting up to the time the breakdown is read
+            if (currentStatus != null && enteredAt != JiraTimestamps.ABSENT) {
+                if (resolvedAt == JiraTimestamps.ABSENT) {
+                    breakdown.openSince(JiraTimestamps.epochMillis(enteredAt));
+                } else if (JiraTimestamps.epochMillis(resolvedAt) >= JiraTimestamps.epochMillis(enteredAt)) {
+                    breakdown.add(currentStatus, JiraTimestamps.epochMillis(resolvedAt) - JiraTimestamps.epochMillis(enteredAt));
+                }
+            }
+            
+            metrics.setOpenDate(JiraTimestamps.format(openAt));
+            metrics.setInProgressDate(JiraTimestamps.format(inProgressAt));
+            metrics.setClosedDate(JiraTimestamps.format(closedAt));
+            
+            // Durations are taken between wall-clock times, ignoring offset changes such as DST
+            // Calculate time to start (from created to in progress)
+            if (createdAt != JiraTimestamps.ABSENT && inProgressAt != JiraTimestamps.ABSENT) {
+                metrics.setTimeToStart(hoursBetween(createdAt, inProgressAt));
+            }
+            
+            // Calculate development time (from in progress to closed)
+            if (inProgressAt != JiraTimestamps.ABSENT && closedAt != JiraTimestamps.ABSENT) {
+                metrics.setDevelopmentTime(hoursBetween(inProgressAt, closedAt));
+            }
+            
+            // Calculate total lead time (from created to closed)
+            if (createdAt != JiraTimestamps.ABSENT && closedAt != JiraTimestamps.ABSENT) {
+                metrics.setTotalLeadTime(hoursBetween(createdAt, closedAt));
+            }
         }
+        
+        private static long hoursBetween(long from, long to) {
+            // Same rounding as Duration.toHours(): whole seconds rounded down, then hours truncated towards zero
+            long seconds = Math.floorDiv(JiraTimestamps.localMillis(to) - JiraTimestamps.localMillis(from), 1000L);
+            return seconds / 3600;
+        }
+    }
+    
+    private static boolean isCompletionStatus(String status) {
+        return CLOSED_STATUS.equals(status) || RESOLVED_STATUS.equals(status) || DONE_STATUS.equals(status);
     }
     
     /**
      * Inner class to hold development metrics for an issue
      */
-    public static class DevelopmentMetrics {
+    public static class DevelopmentMetrics implements Serializable {
+        private static final long serialVersionUID = 1L;
+        
         private String createdDate;
         private String openDate;
         private String inProgressDate;
@@ -123,6 +259,8 @@ public class DevelopmentTimeCalculator {
         private Long timeToStart;         // Time from created to in progress (hours)
         private Long developmentTime;     // Time from in progress to closed (hours)
         private Long totalLeadTime;       // Time from created to closed (hours)
+        private final StatusTimeBreakdown statusBreakdown = new StatusTimeBreakdown();
+        private transient boolean incomplete;   // Calculation failed part way, so the metrics are partial
         
         // Getters and Setters
         public String getCreatedDate() { return createdDate; }
@@ -145,5 +283,135 @@ public class DevelopmentTimeCalculator {
         
         public Long getTotalLeadTime() { return totalLeadTime; }
         public void setTotalLeadTime(Long totalLeadTime) { this.totalLeadTime = totalLeadTime; }
+        
+        public StatusTimeBreakdown getStatusBreakdown() { return statusBreakdown; }
+        
+        public boolean isIncomplete() { return incomplete; }
+        public void setIncomplete(boolean incomplete) { this.incomplete = incomplete; }
+    }
+    
+    /**
+     * Accumulated time per status, the number of times an issue was reopened, i.e. moved out of Closed, Resolved
+     * or Done, and the number of times it returned to an earlier status of the workflow, e.g. In Review to In Progress.
+     * Statuses are kept in the order they were first visited, backed by parallel arrays.
+     * The status an unresolved issue is in now stays open and counts up to the time it is read.
+     */
+    public static class StatusTimeBreakdown implements Serializable {
+        private static final long serialVersionUID = 1L;
+        private static final long MILLIS_PER_HOUR = 3_600_000L;
+        
+        private String[] statuses = new String[8];
+        private long[] durations = new long[8];   // Accumulated time per status (milliseconds)
+        private int size;
+        private int currentIndex = -1;
+        private long currentSince = -1L;          // Start of the still open interval (epoch millis), -1 when closed
+        private int reopenCount;
+        private int returnCount;
+        private int workflowStage = -1;           // Stage of the last status on the workflow order, -1 before any
+        
+        void visit(String status) {
+            currentIndex = indexOf(status, true);
+            workflowStage = Math.max(workflowStage, workflowStage(status));
+        }
+        
+        void transitionTo(String status) {
+            // Going back and forth between working statuses (e.g. Blocked and In Progress) is not a reopen
+            if (currentIndex >= 0 && isCompletionStatus(statuses[currentIndex]) && !isCompletionStatus(status)) {
+                reopenCount++;
+            }
+            // Statuses off the workflow order (e.g. Blocked) are skipped, so In Progress -> Blocked -> In Progress is no return
+            int stage = workflowStage(status);
+            if (stage >= 0) {
+                if (stage < workflowStage) {
+                    returnCount++;
+                }
+                workflowStage = stage;
+            }
+            currentIndex = indexOf(status, true);
+        }
+        
+        private static int workflowStage(String status) {
+            String normalized = status.toLowerCase(Locale.ROOT);
+            int stage = -1;
+            for (Map.Entry<String, Integer> entry : WORKFLOW_STAGES.entrySet()) {
+                if (normalized.contains(entry.getKey())) {
+                    stage = Math.max(stage, entry.getValue());
+                }
+            }
+            return stage;
+        }
+        
+        void openSince(long epochMillis) {
+            currentSince = epochMillis;
+        }
+        
+        void add(String status, long millis) {
+            durations[indexOf(status, true)] += millis;
+        }
+        
+        private int indexOf(String status, boolean create) {
+            for (int i = 0; i < size; i++) {
+                if (statuses[i].equals(status)) {
+                    return i;
+                }
+            }
+            if (!create) {
+                return -1;
+            }
+            if (size == statuses.length) {
+                statuses = Arrays.copyOf(statuses, size * 2);
+                durations = Arrays.copyOf(durations, size * 2);
+            }
+            statuses[size] = status;
+            return size++;
+        }
+        
+        public int size() { return size; }
+        
+        public String getStatus(int index) { return statuses[index]; }
+        
+        public long getHours(int index) { return millis(index, System.currentTimeMillis()) / MILLIS_PER_HOUR; }
+        
+        public long getHours(String status) {
+            int index = indexOf(status, false);
+            return index < 0 ? 0L : getHours(index);
+        }
+        
+        private long millis(int index, long now) {
+            if (index == currentIndex && currentSince >= 0 && now > currentSince) {
+                return durations[index] + now - currentSince;
+            }
+            return durations[index];
+        }
+        
+        public int getReopenCount() { return reopenCount; }
+        
+        public int getReturnCount() { return returnCount; }
+        
+        public long getBlockedTime() { return sumMatching(BLOCKED_KEYWORD); }
+        
+        public long getReviewTime() { return sumMatching(REVIEW_KEYWORD); }
+        
+        private long sumMatching(String keyword) {
+            long now = System.currentTimeMillis();
+            long total = 0L;
+            for (int i = 0; i < size; i++) {
+                if (statuses[i].toLowerCase(Locale.ROOT).contains(keyword)) {
+                    total += millis(i, now);
+                }
+            }
+            return total / MILLIS_PER_HOUR;
+        }
+        
+        /**
+         * Compact "status=hours" form used for the CSV export, e.g. "Open=12;In Progress=40"
+         */
+        public String toSummary() {
+            StringJoiner joiner = new StringJoiner(";");
+            for (int i = 0; i < size; i++) {
+                joiner.add(statuses[i] + "=" + getHours(i));
+            }
+            return joiner.toString();
+        }
     }
 }
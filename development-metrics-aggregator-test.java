@@ -0,0 +1,76 @@
+package com.ringcentral.engagemetrics.schedular.api.services;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ringcentral.engagemetrics.schedular.api.model.jira.Issues;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DevelopmentMetricsAggregatorTests {
+
+	private static final ObjectMapper MAPPER = new ObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+	private final DevelopmentTimeCalculator calculator = new DevelopmentTimeCalculator();
+
+	@TempDir
+	Path tempDir;
+
+	@Test
+	void keepsScopesApartAndCountsSharedIssuesOnce() {
+		DevelopmentMetricsAggregator aggregator = aggregator();
+
+		aggregator.publish("project = A", snapshot("A-1", "A-2"));
+		aggregator.publish("assignee in (user1)", snapshot("A-2", "A-3"));
+		assertEquals(3L, issueCount(aggregator));
+
+		// Re-extracting a scope replaces only that scope's issues
+		aggregator.publish("project = A", snapshot("A-1"));
+		assertEquals(3L, issueCount(aggregator));
+	}
+
+	@Test
+	void restoresPublishedScopesAfterRestart() throws Exception {
+		aggregator().publish("project = A", snapshot("A-1", "A-2"));
+
+		assertEquals(2L, issueCount(aggregator()));
+		try (var files = Files.list(tempDir)) {
+			assertEquals(1, files.count());
+		}
+	}
+
+	@Test
+	void ignoresUnreadableSnapshotFile() throws Exception {
+		Files.writeString(tempDir.resolve("aggregates.ser"), "not a snapshot");
+
+		assertTrue(aggregator().getAggregates(DevelopmentMetricsAggregator.MonthBasis.CREATED, null, false).isEmpty());
+	}
+
+	private DevelopmentMetricsAggregator aggregator() {
+		return new DevelopmentMetricsAggregator(tempDir.resolve("aggregates.ser").toString(), Duration.ofDays(30));
+	}
+
+	private DevelopmentMetricsAggregator.Snapshot snapshot(String... keys) {
+		DevelopmentMetricsAggregator.Snapshot snapshot = new DevelopmentMetricsAggregator.Snapshot();
+		for (String key : keys) {
+			Map<String, Object> fields = Map.of("created", "2024-03-01T10:00:00.000+0000",
+					"resolutiondate", "2024-03-05T10:00:00.000+0000", "project", Map.of("key", "A"));
+			Issues issue = MAPPER.convertValue(Map.of("key", key, "fields", fields), Issues.class);
+			snapshot.record(issue, calculator.calculateDevelopmentMetrics(issue));
+		}
+		return snapshot;
+	}
+
+	private static Object issueCount(DevelopmentMetricsAggregator aggregator) {
+		List<Map<String, Object>> rows = aggregator.getAggregates(DevelopmentMetricsAggregator.MonthBasis.CREATED, null, false);
+		assertEquals(1, rows.size());
+		return rows.get(0).get("Issue_Count");
+	}
+}
@@ -0,0 +1,280 @@
+package com.ringcentral.engagemetrics.schedular.api.services;
+
+import com.ringcentral.engagemetrics.schedular.api.model.jira.CompactIssue;
+import com.ringcentral.engagemetrics.schedular.api.model.jira.Issues;
+import com.ringcentral.engagemetrics.schedular.utils.DurationHistogram;
+import com.ringcentral.engagemetrics.schedular.utils.JiraTimestamps;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Serves lead and development time percentiles of the issues of all extraction scopes (e.g. the JQL of a
+ * project or team export). Each scope keeps the snapshot of its latest extraction, snapshots are persisted
+ * and merged by issue key when served, so overlapping scopes count a shared issue once.
+ */
+@Service
+public class DevelopmentMetricsAggregator {
+    private static final Logger logger = LoggerFactory.getLogger(DevelopmentMetricsAggregator.class);
+    private static final DateTimeFormatter JIRA_DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSSZ");
+    private static final String UNASSIGNED = "Unassigned";
+    private static final ObjectInputFilter SNAPSHOT_FILTER = ObjectInputFilter.Config.createFilter(
+            "java.lang.*;java.util.*;"
+                    + DevelopmentMetricsAggregator.class.getName() + "$*;!*");
+
+    /**
+     * Month an issue is bucketed into
+     */
+    public enum MonthBasis { CREATED, RESOLVED }
+
+    private final Path snapshotFile;
+    private final long maxAgeMillis;
+    // Scope -> snapshot of its latest extraction, least recently published first
+    private final LinkedHashMap<String, Snapshot> snapshots = new LinkedHashMap<>();
+    // Merge of all scope snapshots, rebuilt whenever one is published
+    private volatile Snapshot served = new Snapshot();
+
+    public DevelopmentMetricsAggregator(@Value("${jira.metrics.aggregates.path:development-metrics-aggregates.ser}") String snapshotPath,
+                                        @Value("${jira.metrics.aggregates.max-age:P30D}") Duration maxAge) {
+        this.snapshotFile = Paths.get(snapshotPath);
+        this.maxAgeMillis = maxAge.toMillis();
+        load();
+    }
+
+    /**
+     * Make the snapshot of a completed extraction the one served for its scope and persist all snapshots.
+     * Re-extracting a scope replaces its previous snapshot, so its issues are not counted twice.
+     *
+     * @param scope identifies what was extracted, e.g. the JQL query
+     */
+    public synchronized void publish(String scope, Snapshot snapshot) {
+        snapshots.remove(scope);
+        snapshots.put(scope, snapshot);
+        served = mergeSnapshots();
+        persist();
+    }
+
+    /**
+     * Return p50/p85/p95 lead and development time per group over the issues of all scopes.
+     *
+     * @param basis month basis to bucket by
+     * @param project optional project key filter
+     * @param byAssignee whether to keep assignees apart or merge them into one row per project and month
+     * @return one row per group, ordered by project, month and assignee
+     */
+    public List<Map<String, Object>> getAggregates(MonthBasis basis, String project, boolean byAssignee) {
+        return served.getAggregates(basis, project, byAssignee);
+    }
+
+    /**
+     * Merges the snapshots still within the max age; an issue in several scopes is taken from the latest published one
+     */
+    private Snapshot mergeSnapshots() {
+        long now = System.currentTimeMillis();
+        snapshots.values().removeIf(snapshot -> now - snapshot.createdAt > maxAgeMillis);
+        Snapshot merged = new Snapshot();
+        snapshots.values().forEach(merged::merge);
+        return merged;
+    }
+
+    private void persist() {
+        Path tempFile = null;
+        try {
+            tempFile = Files.createTempFile(snapshotFile.toAbsolutePath().getParent(), snapshotFile.getFileName().toString(), ".tmp");
+            try (ObjectOutputStream out = new ObjectOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+                out.writeObject(new LinkedHashMap<>(snapshots));
+            }
+            Files.move(tempFile, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            tempFile = null;
+        } catch (IOException e) {
+            logger.error("Error persisting development metrics snapshots to {}", snapshotFile, e);
+        } finally {
+            if (tempFile != null) {
+                try {
+                    Files.deleteIfExists(tempFile);
+                } catch (IOException e) {
+                    logger.warn("Could not delete temporary snapshot file {}", tempFile, e);
+                }
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private synchronized void load() {
+        if (!Files.exists(snapshotFile)) {
+            return;
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(Files.newInputStream(snapshotFile)))) {
+            in.setObjectInputFilter(SNAPSHOT_FILTER);
+            snapshots.putAll((Map<String, Snapshot>) in.readObject());
+            served = mergeSnapshots();
+            logger.info("Loaded development metrics snapshots of {} scopes from {}", snapshots.size(), snapshotFile);
+        } catch (IOException | ClassNotFoundException | ClassCastException e) {
+            // Snapshots are rebuilt by the next extraction of each scope
+            logger.warn("Ignoring unreadable development metrics snapshots {}: {}", snapshotFile, e.getMessage());
+        }
+    }
+
+    /**
+     * Development metrics of one extraction, kept per issue key with the groups the issue falls into.
+     * Merging two snapshots replaces the issues they share, so runs over overlapping issues can be combined.
+     */
+    public static class Snapshot implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final long createdAt = System.currentTimeMillis();
+        // Written as a plain HashMap, so reading a snapshot only needs java.util and the records allow-listed
+        private transient Map<String, IssueRecord> issues = new ConcurrentHashMap<>();
+
+        /**
+         * Record the metrics of a single issue. Every issue lands in its created-month group,
+         * and additionally in its resolved-month group once it has been resolved.
+         */
+        public void record(Issues issue, DevelopmentTimeCalculator.DevelopmentMetrics metrics) {
+            if (issue.getFields() == null || issue.getKey() == null) {
+                return;
+            }
+            String project = issue.getFields().getProject() != null ? issue.getFields().getProject().getKey() : "";
+            String assignee = issue.getFields().getAssignee() != null ? issue.getFields().getAssignee().getName() : UNASSIGNED;
+
+            try {
+                put(issue.getKey(), project, assignee, toMonth(issue.getFields().getCreated()),
+                        toMonth(issue.getFields().getResolutionDate()), metrics);
+            } catch (Exception e) {
+                logger.error("Error aggregating development metrics for issue: {}", issue.getKey(), e);
+            }
+        }
+
+        /**
+         * Record the metrics of a single compact issue, bucketed the same way as a full issue
+         */
+        public void record(CompactIssue issue, DevelopmentTimeCalculator.DevelopmentMetrics metrics) {
+            if (issue.getKey() == null) {
+                return;
+            }
+            String project = issue.getProjectKey() != null ? issue.getProjectKey() : "";
+            String assignee = issue.getAssigneeName() != null ? issue.getAssigneeName() : UNASSIGNED;
+            put(issue.getKey(), project, assignee, toMonth(issue.getCreatedAt()), toMonth(issue.getResolutionDateAt()), metrics);
+        }
+
+        /**
+         * Merge the issues of another run (or another instance) into this one; issues recorded by both are taken from the other run
+         */
+        public void merge(Snapshot other) {
+            issues.putAll(other.issues);
+        }
+
+        public int size() {
+            return issues.size();
+        }
+
+        public List<Map<String, Object>> getAggregates(MonthBasis basis, String project, boolean byAssignee) {
+            Map<GroupKey, GroupStats> selected = new TreeMap<>();
+            for (IssueRecord issue : issues.values()) {
+                String month = basis == MonthBasis.CREATED ? issue.createdMonth() : issue.resolvedMonth();
+                if (month == null || (project != null && !project.equals(issue.project()))) {
+                    continue;
+                }
+                GroupKey key = new GroupKey(basis, issue.project(), byAssignee ? issue.assignee() : null, month);
+                selected.computeIfAbsent(key, k -> new GroupStats()).record(issue);
+            }
+
+            List<Map<String, Object>> rows = new ArrayList<>();
+            selected.forEach((key, stats) -> {
+                Map<String, Object> row = new LinkedHashMap<>();
+                row.put("Project", key.project());
+                if (byAssignee) {
+                    row.put("Assignee", key.assignee());
+                }
+                row.put("Month", key.month());
+                row.put("Issue_Count", stats.issueCount);
+                putPercentiles(row, "Lead_Time", stats.leadTime);
+                putPercentiles(row, "Development_Time", stats.developmentTime);
+                rows.add(row);
+            });
+            return rows;
+        }
+
+        private void writeObject(ObjectOutputStream out) throws IOException {
+            out.defaultWriteObject();
+            out.writeObject(new HashMap<>(issues));
+        }
+
+        @SuppressWarnings("unchecked")
+        private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+            in.defaultReadObject();
+            issues = new ConcurrentHashMap<>((Map<String, IssueRecord>) in.readObject());
+        }
+
+        private void put(String key, String project, String assignee, String createdMonth, String resolvedMonth,
+                         DevelopmentTimeCalculator.DevelopmentMetrics metrics) {
+            // Group values repeat across issues, so they are interned to keep one copy each
+            issues.put(key, new IssueRecord(project.intern(), assignee.intern(),
+                    createdMonth != null ? createdMonth.intern() : null, resolvedMonth != null ? resolvedMonth.intern() : null,
+                    metrics.getTotalLeadTime(), metrics.getDevelopmentTime()));
+        }
+    }
+
+    private record IssueRecord(String project, String assignee, String createdMonth, String resolvedMonth,
+                               Long leadTime, Long developmentTime) implements Serializable {
+    }
+
+    private static void putPercentiles(Map<String, Object> row, String prefix, DurationHistogram histogram) {
+        row.put(prefix + "_P50", histogram.quantile(0.50));
+        row.put(prefix + "_P85", histogram.quantile(0.85));
+        row.put(prefix + "_P95", histogram.quantile(0.95));
+    }
+
+    private static String toMonth(String jiraDate) {
+        if (jiraDate == null || jiraDate.isEmpty()) {
+            return null;
+        }
+        return YearMonth.from(OffsetDateTime.parse(jiraDate, JIRA_DATE_FORMAT)).toString();
+    }
+
+    private static String toMonth(long timestamp) {
+        return timestamp == JiraTimestamps.ABSENT ? null : YearMonth.from(JiraTimestamps.toLocalDateTime(timestamp)).toString();
+    }
+
+    private record GroupKey(MonthBasis basis, String project, String assignee, String month)
+            implements Comparable<GroupKey> {
+        private static final Comparator<GroupKey> ORDER = Comparator.comparing(GroupKey::basis)
+                .thenComparing(GroupKey::project)
+                .thenComparing(GroupKey::month)
+                .thenComparing(GroupKey::assignee, Comparator.nullsFirst(Comparator.naturalOrder()));
+
+        @Override
+        public int compareTo(GroupKey other) {
+            return ORDER.compare(this, other);
+        }
+    }
+
+    private static class GroupStats {
+        private final DurationHistogram leadTime = new DurationHistogram();
+        private final DurationHistogram developmentTime = new DurationHistogram();
+        private long issueCount;
+
+        void record(IssueRecord issue) {
+            issueCount++;
+            if (issue.leadTime() != null) {
+                leadTime.record(issue.leadTime());
+            }
+            if (issue.developmentTime() != null) {
+                developmentTime.record(issue.developmentTime());
+            }
+        }
+    }
+}
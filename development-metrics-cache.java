@@ -0,0 +1,192 @@
+package com.ringcentral.engagemetrics.schedular.api.services;
+
+import com.ringcentral.engagemetrics.schedular.api.model.jira.CompactIssue;
+import com.ringcentral.engagemetrics.schedular.api.model.jira.History;
+import com.ringcentral.engagemetrics.schedular.api.model.jira.Issues;
+import com.ringcentral.engagemetrics.schedular.utils.JiraTimestamps;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.*;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Persistent cache of development metrics keyed by issue key. An entry is only reused while the issue's
+ * version (its updated timestamp, or the latest changelog history id) is unchanged.
+ * Entries are evicted once older than the max age, and least recently used first beyond the max size.
+ * The cache file starts with its format and the calculator's logic version and is discarded when either differs;
+ * only the entry classes are accepted when reading it back.
+ */
+@Service
+public class DevelopmentMetricsCache {
+    private final Logger logger = LoggerFactory.getLogger(DevelopmentMetricsCache.class);
+    private static final int FORMAT_VERSION = 1;
+    private static final ObjectInputFilter ENTRY_FILTER = ObjectInputFilter.Config.createFilter(
+            "maxdepth=16;java.lang.*;java.util.*;"
+                    + DevelopmentMetricsCache.class.getName() + "$CacheEntry;"
+                    + DevelopmentTimeCalculator.DevelopmentMetrics.class.getName() + ";"
+                    + DevelopmentTimeCalculator.StatusTimeBreakdown.class.getName() + ";!*");
+
+    private final Path cacheFile;
+    private final int maxEntries;
+    private final long maxAgeMillis;
+    private final Map<String, CacheEntry> entries;
+    private long hits;
+    private long misses;
+
+    public DevelopmentMetricsCache(@Value("${jira.metrics.cache.path:development-metrics.cache}") String cachePath,
+                                   @Value("${jira.metrics.cache.max-entries:500000}") int maxEntries,
+                                   @Value("${jira.metrics.cache.max-age:P30D}") Duration maxAge) {
+        this.cacheFile = Paths.get(cachePath);
+        this.maxEntries = maxEntries;
+        this.maxAgeMillis = maxAge.toMillis();
+        // Access-ordered so the eldest entry is the least recently used one
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CacheEntry> eldest) {
+                return size() > DevelopmentMetricsCache.this.maxEntries;
+            }
+        };
+        load();
+    }
+
+    /**
+     * Return the cached metrics for the issue if its version is unchanged, otherwise compute and store them
+     */
+    public DevelopmentTimeCalculator.DevelopmentMetrics getOrCompute(
+            Issues issue, Function<Issues, DevelopmentTimeCalculator.DevelopmentMetrics> calculator) {
+        return getOrCompute(issue.getKey(), versionOf(issue), () -> calculator.apply(issue));
+    }
+
+    /**
+     * Same as for full issues; a compact issue has the same key and version, so both share entries
+     */
+    public DevelopmentTimeCalculator.DevelopmentMetrics getOrCompute(
+            CompactIssue issue, Function<CompactIssue, DevelopmentTimeCalculator.DevelopmentMetrics> calculator) {
+        return getOrCompute(issue.getKey(), versionOf(issue), () -> calculator.apply(issue));
+    }
+
+    private synchronized DevelopmentTimeCalculator.DevelopmentMetrics getOrCompute(
+            String key, String version, Supplier<DevelopmentTimeCalculator.DevelopmentMetrics> calculator) {
+        if (key == null || version == null) {
+            return calculator.get();
+        }
+
+        long now = System.currentTimeMillis();
+        CacheEntry entry = entries.get(key);
+        if (entry != null && entry.version().equals(version) && now - entry.cachedAt() <= maxAgeMillis) {
+            hits++;
+            return entry.metrics();
+        }
+
+        misses++;
+        DevelopmentTimeCalculator.DevelopmentMetrics metrics = calculator.get();
+        // Partial metrics of a failed calculation are recomputed next time rather than served from the cache
+        if (!metrics.isIncomplete()) {
+            entries.put(key, new CacheEntry(version, now, metrics));
+        }
+        return metrics;
+    }
+
+    /**
+     * Write the cache to disk, dropping expired entries first
+     */
+    public synchronized void persist() {
+        long now = System.currentTimeMillis();
+        entries.values().removeIf(entry -> now - entry.cachedAt() > maxAgeMillis);
+
+        Path tempFile = null;
+        try {
+            tempFile = Files.createTempFile(cacheFile.toAbsolutePath().getParent(), cacheFile.getFileName().toString(), ".tmp");
+            try (ObjectOutputStream out = new ObjectOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+                out.writeInt(FORMAT_VERSION);
+                out.writeInt(DevelopmentTimeCalculator.LOGIC_VERSION);
+                out.writeObject(new HashMap<>(entries));
+            }
+            Files.move(tempFile, cacheFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            tempFile = null;
+            logger.info("Persisted {} development metrics entries ({} hits, {} misses since start)", entries.size(), hits, misses);
+        } catch (IOException e) {
+            logger.error("Error persisting development metrics cache to {}", cacheFile, e);
+        } finally {
+            if (tempFile != null) {
+                try {
+                    Files.deleteIfExists(tempFile);
+                } catch (IOException e) {
+                    logger.warn("Could not delete temporary cache file {}", tempFile, e);
+                }
+            }
+        }
+    }
+
+    public synchronized long getHits() { return hits; }
+
+    public synchronized long getMisses() { return misses; }
+
+    @SuppressWarnings("unchecked")
+    private void load() {
+        if (!Files.exists(cacheFile)) {
+            return;
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(Files.newInputStream(cacheFile)))) {
+            in.setObjectInputFilter(ENTRY_FILTER);
+            int formatVersion = in.readInt();
+            int logicVersion = in.readInt();
+            if (formatVersion != FORMAT_VERSION || logicVersion != DevelopmentTimeCalculator.LOGIC_VERSION) {
+                logger.info("Discarding development metrics cache {} of format {} and logic {}", cacheFile, formatVersion, logicVersion);
+                return;
+            }
+            Map<String, CacheEntry> stored = (Map<String, CacheEntry>) in.readObject();
+            long now = System.currentTimeMillis();
+            // Oldest first, so the most recently cached entries survive the size bound
+            stored.entrySet().stream()
+                    .filter(e -> now - e.getValue().cachedAt() <= maxAgeMillis)
+                    .sorted(Comparator.comparingLong(e -> e.getValue().cachedAt()))
+                    .forEach(e -> entries.put(e.getKey(), e.getValue()));
+            logger.info("Loaded {} development metrics entries from {}", entries.size(), cacheFile);
+        } catch (IOException | ClassNotFoundException | ClassCastException e) {
+            // A stale or incompatible cache is simply rebuilt
+            logger.warn("Ignoring unreadable development metrics cache {}: {}", cacheFile, e.getMessage());
+        }
+    }
+
+    private static String versionOf(Issues issue) {
+        if (issue.getFields() != null && issue.getFields().getUpdated() != null) {
+            return issue.getFields().getUpdated();
+        }
+        if (issue.getChangelog() == null || issue.getChangelog().getHistories() == null) {
+            return null;
+        }
+        // Fall back to the latest history id; ids are numeric and increase over time
+        String latest = null;
+        for (History history : issue.getChangelog().getHistories()) {
+            String id = history.getId();
+            if (id != null && (latest == null || id.length() > latest.length()
+                    || (id.length() == latest.length() && id.compareTo(latest) > 0))) {
+                latest = id;
+            }
+        }
+        return latest == null ? null : "history:" + latest;
+    }
+
+    private static String versionOf(CompactIssue issue) {
+        if (issue.getUpdatedAt() != JiraTimestamps.ABSENT) {
+            return issue.getUpdated();
+        }
+        return issue.getLatestHistoryId() < 0 ? null : "history:" + issue.getLatestHistoryId();
+    }
+
+    private record CacheEntry(String version, long cachedAt, DevelopmentTimeCalculator.DevelopmentMetrics metrics)
+            implements Serializable {
+        private static final long serialVersionUID = 1L;
+    }
+}
@@ -0,0 +1,33 @@
+package com.ringcentral.engagemetrics.schedular.api.controllers;
+
+import com.ringcentral.engagemetrics.schedular.api.services.DevelopmentMetricsAggregator;
+import lombok.AllArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@AllArgsConstructor
+@RequestMapping("/api/v1/data/jira/metrics")
+public class DevelopmentMetricsController {
+
+    private final DevelopmentMetricsAggregator developmentMetricsAggregator;
+
+    /**
+     * Get lead and development time percentiles grouped by project, assignee and month
+     *
+     * @param basis month to bucket issues by, CREATED or RESOLVED
+     * @param project optional project key to restrict the result to
+     * @param byAssignee whether to return one row per assignee or merge assignees per project and month
+     * @return p50/p85/p95 lead and development time (hours) per group
+     */
+    @GetMapping("/aggregates")
+    public ResponseEntity<List<Map<String, Object>>> getAggregates(
+            @RequestParam(value = "basis", defaultValue = "RESOLVED") DevelopmentMetricsAggregator.MonthBasis basis,
+            @RequestParam(value = "project", required = false) String project,
+            @RequestParam(value = "byAssignee", defaultValue = "true") boolean byAssignee) {
+        return ResponseEntity.ok(developmentMetricsAggregator.getAggregates(basis, project, byAssignee));
+    }
+}
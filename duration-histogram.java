@@ -0,0 +1,99 @@
+package com.ringcentral.engagemetrics.schedular.utils;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Mergeable log-linear histogram for durations in hours.
+ * Values below 32 are counted exactly, larger values fall into 16 sub-buckets per power of two
+ * (about 6% relative error), so a sketch stays a few hundred bytes regardless of how many issues it has seen.
+ */
+public class DurationHistogram implements Serializable {
+    private static final int EXACT_LIMIT = 32;
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int FIRST_EXPONENT = 5;   // log2(EXACT_LIMIT)
+
+    private long[] counts = new long[EXACT_LIMIT];
+    private long totalCount;
+    private long min = Long.MAX_VALUE;
+    private long max = Long.MIN_VALUE;
+
+    public synchronized void record(long value) {
+        if (value < 0) {
+            return;
+        }
+        int index = indexOf(value);
+        if (index >= counts.length) {
+            counts = Arrays.copyOf(counts, index + 1);
+        }
+        counts[index]++;
+        totalCount++;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    /**
+     * Adds all values recorded by another histogram to this one
+     */
+    public synchronized void merge(DurationHistogram other) {
+        long[] otherCounts;
+        long otherTotal, otherMin, otherMax;
+        synchronized (other) {
+            otherCounts = other.counts.clone();
+            otherTotal = other.totalCount;
+            otherMin = other.min;
+            otherMax = other.max;
+        }
+        if (otherCounts.length > counts.length) {
+            counts = Arrays.copyOf(counts, otherCounts.length);
+        }
+        for (int i = 0; i < otherCounts.length; i++) {
+            counts[i] += otherCounts[i];
+        }
+        totalCount += otherTotal;
+        min = Math.min(min, otherMin);
+        max = Math.max(max, otherMax);
+    }
+
+    /**
+     * Returns the value at the given quantile (0.0 - 1.0), or null if nothing was recorded
+     */
+    public synchronized Long quantile(double quantile) {
+        if (totalCount == 0) {
+            return null;
+        }
+        long rank = Math.max(1L, (long) Math.ceil(quantile * totalCount));
+        long seen = 0L;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                // Clamp the bucket midpoint to the observed range so extremes stay exact
+                return Math.max(min, Math.min(max, midpointOf(i)));
+            }
+        }
+        return max;
+    }
+
+    public synchronized long getCount() { return totalCount; }
+
+    private static int indexOf(long value) {
+        if (value < EXACT_LIMIT) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) ((value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1));
+        return EXACT_LIMIT + (exponent - FIRST_EXPONENT) * SUB_BUCKETS + subBucket;
+    }
+
+    private static long midpointOf(int index) {
+        if (index < EXACT_LIMIT) {
+            return index;
+        }
+        int exponent = (index - EXACT_LIMIT) / SUB_BUCKETS + FIRST_EXPONENT;
+        int subBucket = (index - EXACT_LIMIT) % SUB_BUCKETS;
+        long width = 1L << (exponent - SUB_BUCKET_BITS);
+        long lower = (SUB_BUCKETS + subBucket) * width;
+        return lower + width / 2;
+    }
+}
@@ -0,0 +1,71 @@
+package com.ringcentral.engagemetrics.schedular.api.config;
+
+import feign.Client;
+import feign.Request;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import okhttp3.ConnectionPool;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * HTTP transport of the Jira Feign client, selected with jira.api.transport:
+ * "okhttp" (default) pools keep-alive connections, negotiates HTTP/2 over TLS and accepts gzip responses;
+ * "default" keeps Feign's built-in HttpURLConnection client.
+ * Not annotated with @Configuration, it is only applied through JiraApiClient's configuration attribute.
+ */
+public class JiraFeignTransportConfig {
+
+    @Bean
+    public Request.Options jiraRequestOptions(@Value("${jira.api.http.connect-timeout:PT10S}") Duration connectTimeout,
+                                              @Value("${jira.api.http.read-timeout:PT60S}") Duration readTimeout) {
+        return new Request.Options(connectTimeout, readTimeout, true);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "jira.api.transport", havingValue = "okhttp", matchIfMissing = true)
+    public Client jiraOkHttpClient(@Value("${jira.api.http.max-idle-connections:10}") int maxIdleConnections,
+                                   @Value("${jira.api.http.keep-alive:PT5M}") Duration keepAlive,
+                                   @Value("${jira.api.http.connect-timeout:PT10S}") Duration connectTimeout,
+                                   @Value("${jira.api.http.read-timeout:PT60S}") Duration readTimeout,
+                                   ObjectProvider<MeterRegistry> meterRegistry) {
+        ConnectionPool connectionPool = new ConnectionPool(maxIdleConnections, keepAlive.toMillis(), TimeUnit.MILLISECONDS);
+        OkHttpClient.Builder builder = new OkHttpClient.Builder()
+                .connectionPool(connectionPool)
+                // HTTP/2 is negotiated via ALPN where the server supports it, HTTP/1.1 keep-alive otherwise
+                .protocols(List.of(Protocol.HTTP_2, Protocol.HTTP_1_1))
+                .connectTimeout(connectTimeout)
+                .readTimeout(readTimeout);
+        // OkHttp adds "Accept-Encoding: gzip" and decompresses transparently as long as the request does not set it
+
+        meterRegistry.ifAvailable(registry -> {
+            Gauge.builder("jira.http.pool.connections", connectionPool, ConnectionPool::connectionCount)
+                    .description("Open connections to Jira")
+                    .register(registry);
+            Gauge.builder("jira.http.pool.idle", connectionPool, ConnectionPool::idleConnectionCount)
+                    .description("Idle keep-alive connections to Jira")
+                    .register(registry);
+            builder.addNetworkInterceptor(chain -> {
+                okhttp3.Response response = chain.proceed(chain.request());
+                String encoding = response.header("Content-Encoding", "identity");
+                Counter.builder("jira.http.responses")
+                        .tag("protocol", response.protocol().toString())
+                        .tag("encoding", encoding)
+                        .register(registry)
+                        .increment();
+                return response;
+            });
+        });
+
+        return new feign.okhttp.OkHttpClient(builder.build());
+    }
+}
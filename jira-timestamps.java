@@ -0,0 +1,64 @@
+package com.ringcentral.engagemetrics.schedular.utils;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Jira timestamps ("2024-01-01T10:00:00.000+0000") packed into a single long: the epoch milliseconds
+ * in the high bits and the original UTC offset in minutes in the low 12 bits. Instants compare and
+ * subtract without parsing, and the original text can be reproduced exactly for the CSV export.
+ */
+public final class JiraTimestamps {
+    public static final long ABSENT = Long.MIN_VALUE;
+
+    private static final DateTimeFormatter JIRA_DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSSZ");
+    private static final int OFFSET_BITS = 12;
+    private static final long OFFSET_MASK = (1L << OFFSET_BITS) - 1;
+    // Offsets range from -18:00 to +18:00, i.e. -1080 to 1080 minutes
+    private static final int OFFSET_BIAS = 1 << (OFFSET_BITS - 1);
+
+    private JiraTimestamps() {
+    }
+
+    public static long parse(String jiraDate) {
+        if (jiraDate == null || jiraDate.isEmpty()) {
+            return ABSENT;
+        }
+        OffsetDateTime dateTime = OffsetDateTime.parse(jiraDate, JIRA_DATE_FORMAT);
+        int offsetMinutes = dateTime.getOffset().getTotalSeconds() / 60;
+        return (dateTime.toInstant().toEpochMilli() << OFFSET_BITS) | (offsetMinutes + OFFSET_BIAS);
+    }
+
+    public static long epochMillis(long timestamp) {
+        return timestamp >> OFFSET_BITS;
+    }
+
+    /**
+     * Milliseconds of the wall-clock time in the timestamp's own offset, as LocalDateTime.parse would see it
+     */
+    public static long localMillis(long timestamp) {
+        return epochMillis(timestamp) + offsetMinutes(timestamp) * 60_000L;
+    }
+
+    public static LocalDateTime toLocalDateTime(long timestamp) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis(timestamp)), offset(timestamp));
+    }
+
+    public static String format(long timestamp) {
+        if (timestamp == ABSENT) {
+            return null;
+        }
+        return OffsetDateTime.ofInstant(Instant.ofEpochMilli(epochMillis(timestamp)), offset(timestamp)).format(JIRA_DATE_FORMAT);
+    }
+
+    private static int offsetMinutes(long timestamp) {
+        return (int) (timestamp & OFFSET_MASK) - OFFSET_BIAS;
+    }
+
+    private static ZoneOffset offset(long timestamp) {
+        return ZoneOffset.ofTotalSeconds(offsetMinutes(timestamp) * 60);
+    }
+}
@@ -0,0 +1,60 @@
+package com.ringcentral.engagemetrics.schedular.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JqlInListTemplateTests {
+
+	@Test
+	void keepsSmallInListInOneQuery() {
+		JqlInListTemplate template = new JqlInListTemplate("assignee", List.of("alice", " bob ", "alice", "  "));
+
+		assertEquals(List.of("(project = \"PROJ\") AND assignee IN (\"alice\", \"bob\")"), template.render("project = \"PROJ\"", 2000));
+		assertEquals(List.of("assignee IN (\"alice\", \"bob\")"), template.render(" ", 2000));
+	}
+
+	@Test
+	void quotesAndEscapesValues() {
+		JqlInListTemplate template = new JqlInListTemplate("assignee", List.of("o\"neil", "currentUser()", "first last"));
+
+		assertEquals(List.of("assignee IN (\"o\\\"neil\", currentUser(), \"first last\")"), template.render(null, 2000));
+	}
+
+	@Test
+	void splitsLargeInListWithinEncodedLimit() {
+		List<String> members = IntStream.range(0, 500).mapToObj(i -> "user.name" + i + "@example.com").toList();
+
+		List<String> queries = new JqlInListTemplate("assignee", members).render("project = \"PROJ\"", 2000);
+
+		assertTrue(queries.size() > 1);
+		List<String> seen = new ArrayList<>();
+		for (String query : queries) {
+			assertTrue(URLEncoder.encode(query, StandardCharsets.UTF_8).length() <= 2000);
+			assertTrue(query.startsWith("(project = \"PROJ\") AND assignee IN ("));
+			String values = query.substring(query.indexOf("IN (") + 4, query.length() - 1);
+			for (String value : values.split(", ")) {
+				seen.add(value.replace("\"", ""));
+			}
+		}
+		assertEquals(members, seen);
+	}
+
+	@Test
+	void rejectsValueLargerThanLimit() {
+		JqlInListTemplate template = new JqlInListTemplate("assignee", List.of("x".repeat(100)));
+
+		assertThrows(IllegalArgumentException.class, () -> template.render("", 50));
+	}
+
+	@Test
+	void rendersNothingWithoutValues() {
+		assertTrue(new JqlInListTemplate("assignee", List.of(" ")).render("project = PROJ", 2000).isEmpty());
+	}
+}
@@ -0,0 +1,96 @@
+package com.ringcentral.engagemetrics.schedular.utils;
+
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A precompiled "field IN (...)" condition over a fixed list of values.
+ * Values are quoted and their URL-encoded lengths measured once, so rendering the
+ * condition into size-limited queries is a single pass over the values. Functions such as
+ * currentUser() are kept unquoted.
+ */
+public class JqlInListTemplate {
+
+    private static final String SEPARATOR = ", ";
+    private static final int ENCODED_SEPARATOR_LENGTH = encodedLength(SEPARATOR);
+
+    private final String field;
+    private final List<String> tokens;
+    private final int[] encodedLengths;
+
+    public JqlInListTemplate(String field, List<String> values) {
+        this.field = field;
+        Set<String> uniqueTokens = new LinkedHashSet<>();
+        for (String value : values) {
+            String token = normalize(value);
+            if (token == null) {
+                continue;
+            }
+            if (!token.contains("(")) {
+                token = "\"" + token.replace("\"", "\\\"") + "\"";
+            }
+            uniqueTokens.add(token);
+        }
+        this.tokens = new ArrayList<>(uniqueTokens);
+        this.encodedLengths = tokens.stream().mapToInt(JqlInListTemplate::encodedLength).toArray();
+    }
+
+    /**
+     * Renders the condition combined with the base query into as few queries as possible,
+     * each at most maxEncodedLength characters once URL-encoded.
+     */
+    public List<String> render(String baseQuery, int maxEncodedLength) {
+        List<String> queries = new ArrayList<>();
+        if (tokens.isEmpty()) {
+            return queries;
+        }
+
+        String prefix = (baseQuery == null || baseQuery.trim().isEmpty())
+                ? field + " IN ("
+                : "(" + baseQuery + ") AND " + field + " IN (";
+        String suffix = ")";
+        int budget = maxEncodedLength - encodedLength(prefix) - encodedLength(suffix);
+
+        StringBuilder chunk = new StringBuilder();
+        int chunkLength = 0;
+        for (int i = 0; i < tokens.size(); i++) {
+            if (encodedLengths[i] > budget) {
+                throw new IllegalArgumentException("Value " + tokens.get(i) + " does not fit into a query of "
+                        + maxEncodedLength + " characters");
+            }
+            int added = chunk.length() == 0 ? encodedLengths[i] : ENCODED_SEPARATOR_LENGTH + encodedLengths[i];
+            if (chunkLength + added > budget) {
+                queries.add(prefix + chunk + suffix);
+                chunk.setLength(0);
+                chunkLength = 0;
+                added = encodedLengths[i];
+            }
+            if (chunk.length() > 0) {
+                chunk.append(SEPARATOR);
+            }
+            chunk.append(tokens.get(i));
+            chunkLength += added;
+        }
+        queries.add(prefix + chunk + suffix);
+        return queries;
+    }
+
+    public int size() {
+        return tokens.size();
+    }
+
+    /**
+     * The value as it is queried, null when it is blank and therefore left out of the condition
+     */
+    public static String normalize(String value) {
+        return value == null || value.trim().isEmpty() ? null : value.trim();
+    }
+
+    private static int encodedLength(String text) {
+        return URLEncoder.encode(text, StandardCharsets.UTF_8).length();
+    }
+}
@@ -0,0 +1,101 @@
+package com.ringcentral.engagemetrics.schedular.api.services;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ringcentral.engagemetrics.database.mongo.documents.AdminConfigTeam;
+import com.ringcentral.engagemetrics.schedular.api.model.jira.Issues;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class MultiTeamQueryPlannerTests {
+
+	private static final ObjectMapper MAPPER = new ObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+	private final TeamIssueFetcher teamIssueFetcher = mock(TeamIssueFetcher.class);
+	private final MultiTeamQueryPlanner planner = new MultiTeamQueryPlanner(teamIssueFetcher);
+
+	@Test
+	void groupsTeamsWithSameProjectsAndJqlIntoOneQuery() {
+		when(teamIssueFetcher.fetchIssues(anyString(), anyList(), anyString(), any(), any()))
+				.thenReturn(List.of(issue("A-1", "alice"), issue("A-2", "bob")));
+
+		Map<String, List<Issues>> issues = planner.fetch(List.of(
+				teamQuery("t1", List.of("B", "A"), List.of("alice"), "status = Open"),
+				teamQuery("t2", List.of("A", "B"), List.of("bob", "alice"), " status = Open "),
+				teamQuery("t3", List.of("C"), List.of("carol"), "")), "key", "");
+
+		verify(teamIssueFetcher).fetchIssues("assignee", List.of("alice", "bob"),
+				"project IN (\"A\", \"B\") AND (status = Open)", "key", "");
+		verify(teamIssueFetcher).fetchIssues("assignee", List.of("carol"), "project IN (\"C\")", "key", "");
+		verifyNoMoreInteractions(teamIssueFetcher);
+		assertEquals(List.of("A-1"), keys(issues.get("t1")));
+		assertEquals(List.of("A-1", "A-2"), keys(issues.get("t2")));
+		assertEquals(List.of(), keys(issues.get("t3")));
+	}
+
+	@Test
+	void widensUnionToAnyAssigneeWhenATeamHasNoMembers() {
+		when(teamIssueFetcher.fetchQueries(anyList(), any(), any()))
+				.thenReturn(List.of(issue("A-1", "alice"), issue("A-2", "bob"), issue("A-3", null)));
+
+		Map<String, List<Issues>> issues = planner.fetch(List.of(
+				teamQuery("members", List.of("A"), List.of("alice"), ""),
+				teamQuery("everyone", List.of("A"), List.of(" "), "")), "key", "");
+
+		verify(teamIssueFetcher).fetchQueries(List.of("project IN (\"A\")"), "key", "");
+		verifyNoMoreInteractions(teamIssueFetcher);
+		assertEquals(List.of("A-1"), keys(issues.get("members")));
+		assertEquals(List.of("A-1", "A-2", "A-3"), keys(issues.get("everyone")));
+	}
+
+	@Test
+	void partitionsByAssigneeIgnoringCase() {
+		when(teamIssueFetcher.fetchIssues(anyString(), anyList(), anyString(), any(), any()))
+				.thenReturn(List.of(issue("A-1", "alice"), issue("A-2", "ALICE"), issue("A-3", "bob"), issue("A-4", null)));
+
+		Map<String, List<Issues>> issues = planner.fetch(List.of(teamQuery("t1", List.of("A"), List.of(" Alice "), "")), "key", "");
+
+		assertEquals(List.of("A-1", "A-2"), keys(issues.get("t1")));
+	}
+
+	@Test
+	void treatsNullProjectsAsNoProjectRestriction() {
+		AdminConfigTeam team = new AdminConfigTeam();
+		team.setId("t1");
+		team.setMembers(List.of("alice"));
+		when(teamIssueFetcher.fetchIssues(anyString(), anyList(), anyString(), any(), any())).thenReturn(List.of());
+
+		MultiTeamQueryPlanner.TeamQuery teamQuery = MultiTeamQueryPlanner.TeamQuery.of(team, null, "status = Open");
+		planner.fetch(List.of(teamQuery), "key", "");
+
+		assertEquals(List.of(), teamQuery.projects());
+		verify(teamIssueFetcher).fetchIssues("assignee", List.of("alice"), "status = Open", "key", "");
+	}
+
+	@Test
+	void rejectsTeamQueryThatWouldFetchEveryIssue() {
+		List<MultiTeamQueryPlanner.TeamQuery> teamQueries = List.of(teamQuery("t1", null, List.of(" "), "  "));
+
+		assertThrows(IllegalArgumentException.class, () -> planner.fetch(teamQueries, "key", ""));
+		verifyNoInteractions(teamIssueFetcher);
+	}
+
+	private static MultiTeamQueryPlanner.TeamQuery teamQuery(String teamId, List<String> projects, List<String> members, String jql) {
+		return new MultiTeamQueryPlanner.TeamQuery(teamId, projects, members, jql, issue -> true);
+	}
+
+	private static Issues issue(String key, String assignee) {
+		Map<String, Object> fields = assignee == null ? Map.of() : Map.of("assignee", Map.of("name", assignee));
+		return MAPPER.convertValue(Map.of("key", key, "fields", fields), Issues.class);
+	}
+
+	private static List<String> keys(List<Issues> issues) {
+		return issues == null ? List.of() : issues.stream().map(Issues::getKey).toList();
+	}
+}
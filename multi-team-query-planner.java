@@ -0,0 +1,139 @@
+package com.ringcentral.engagemetrics.schedular.api.services;
+
+import com.ringcentral.engagemetrics.database.mongo.documents.AdminConfigTeam;
+import com.ringcentral.engagemetrics.schedular.api.model.jira.Issues;
+import com.ringcentral.engagemetrics.schedular.utils.JqlInListTemplate;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * Plans the Jira extraction of a multi-team dashboard. Team queries over the same projects and
+ * filter are answered by one union query, and the fetched issues are split per team locally.
+ */
+@Service
+@RequiredArgsConstructor
+public class MultiTeamQueryPlanner {
+    private final Logger logger = LoggerFactory.getLogger(MultiTeamQueryPlanner.class);
+    private static final String ASSIGNEE_FIELD = "assignee";
+
+    private final TeamIssueFetcher teamIssueFetcher;
+
+    /**
+     * The issues a single team needs
+     *
+     * @param teamId   key of the result set
+     * @param projects project keys to query; null or blank keys are treated as no project restriction
+     * @param members  assignees of the team; an empty list means any assignee, blank members are ignored
+     * @param jql      additional JQL shared by the query, e.g. a date range (may be empty)
+     * @param filter   predicate applied locally after fetching, e.g. a status or priority check
+     */
+    public record TeamQuery(String teamId, List<String> projects, List<String> members, String jql,
+                            Predicate<Issues> filter) {
+
+        public TeamQuery {
+            projects = projects == null ? List.of() : projects.stream()
+                    .map(JqlInListTemplate::normalize)
+                    .filter(Objects::nonNull)
+                    .toList();
+        }
+
+        public static TeamQuery of(AdminConfigTeam team, List<String> projects, String jql) {
+            return new TeamQuery(team.getId(), projects, team.getMembers(), jql, issue -> true);
+        }
+    }
+
+    /**
+     * Fetch the issues of all team queries with one union query per distinct project set and JQL
+     *
+     * @param teamQueries queries of the teams shown on the dashboard
+     * @param fields comma-separated list of fields to return
+     * @param expand comma-separated list of expansions (e.g., "changelog")
+     * @return issues per team id
+     * @throws IllegalArgumentException if a team query has no members, projects or JQL, as it would fetch every issue
+     */
+    public Map<String, List<Issues>> fetch(List<TeamQuery> teamQueries, String fields, String expand) {
+        Map<UnionKey, List<TeamQuery>> plan = new LinkedHashMap<>();
+        for (TeamQuery teamQuery : teamQueries) {
+            if (members(teamQuery).isEmpty() && teamQuery.projects().isEmpty() && normalize(teamQuery.jql()).isEmpty()) {
+                throw new IllegalArgumentException("Team query " + teamQuery.teamId()
+                        + " has no members, projects or JQL and would fetch every issue");
+            }
+            UnionKey key = new UnionKey(new TreeSet<>(teamQuery.projects()), normalize(teamQuery.jql()));
+            plan.computeIfAbsent(key, k -> new ArrayList<>()).add(teamQuery);
+        }
+        logger.info("Planned {} union queries for {} team queries", plan.size(), teamQueries.size());
+
+        Map<String, List<Issues>> issuesByTeam = new LinkedHashMap<>();
+        plan.forEach((key, teams) -> {
+            List<Issues> issues = fetchUnion(key, teams, fields, expand);
+            for (TeamQuery team : teams) {
+                issuesByTeam.computeIfAbsent(team.teamId(), id -> new ArrayList<>()).addAll(partition(issues, team));
+            }
+        });
+        return issuesByTeam;
+    }
+
+    private List<Issues> fetchUnion(UnionKey key, List<TeamQuery> teams, String fields, String expand) {
+        String projectJql = key.projects().isEmpty() ? "" : key.projects().stream()
+                .map(project -> "\"" + project + "\"")
+                .collect(Collectors.joining(", ", "project IN (", ")"));
+        String baseJql = key.jql().isEmpty() ? projectJql
+                : projectJql.isEmpty() ? key.jql() : projectJql + " AND (" + key.jql() + ")";
+
+        // A team without members wants every assignee, so the union cannot be narrowed by assignee
+        boolean anyAssignee = teams.stream().anyMatch(team -> members(team).isEmpty());
+        if (anyAssignee) {
+            return teamIssueFetcher.fetchQueries(List.of(baseJql), fields, expand);
+        }
+        List<String> members = teams.stream()
+                .flatMap(team -> members(team).stream())
+                .distinct()
+                .toList();
+        return teamIssueFetcher.fetchIssues(ASSIGNEE_FIELD, members, baseJql, fields, expand);
+    }
+
+    private static List<Issues> partition(List<Issues> issues, TeamQuery team) {
+        Set<String> members = members(team).stream()
+                .map(member -> member.toLowerCase(Locale.ROOT))
+                .collect(Collectors.toSet());
+
+        List<Issues> teamIssues = new ArrayList<>();
+        for (Issues issue : issues) {
+            if (!members.isEmpty()) {
+                // Jira matches assignees case-insensitively, so the local split does too
+                String assignee = issue.getFields() != null && issue.getFields().getAssignee() != null
+                        ? issue.getFields().getAssignee().getName() : null;
+                if (assignee == null || !members.contains(assignee.toLowerCase(Locale.ROOT))) {
+                    continue;
+                }
+            }
+            if (team.filter() == null || team.filter().test(issue)) {
+                teamIssues.add(issue);
+            }
+        }
+        return teamIssues;
+    }
+
+    /**
+     * Members of the team as they are queried, so the local split matches exactly the assignees fetched for it
+     */
+    private static List<String> members(TeamQuery team) {
+        return team.members() == null ? List.of() : team.members().stream()
+                .map(JqlInListTemplate::normalize)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    private static String normalize(String jql) {
+        return jql == null ? "" : jql.trim();
+    }
+
+    private record UnionKey(SortedSet<String> projects, String jql) {
+    }
+}
@@ -2,32 +2,78 @@ package com.example.Jqlquerybuilder.controller;
 
 import com.example.Jqlquerybuilder.model.Condition;
 import com.example.Jqlquerybuilder.model.JqlResponse;
+import com.example.Jqlquerybuilder.model.QueryCostEstimate;
+import com.example.Jqlquerybuilder.model.ValueSuggestion;
+import com.example.Jqlquerybuilder.service.AutocompleteService;
+import com.example.Jqlquerybuilder.service.FieldStatisticsService;
+import com.example.Jqlquerybuilder.utils.JqlConstants;
 import com.example.Jqlquerybuilder.service.JqlQueryService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/jql")
 public class JqlController {
 
     private final JqlQueryService queryService;
+    private final FieldStatisticsService fieldStatisticsService;
+    private final AutocompleteService autocompleteService;
 
     @Autowired
-    public JqlController(JqlQueryService queryService) {
+    public JqlController(JqlQueryService queryService, FieldStatisticsService fieldStatisticsService,
+                         AutocompleteService autocompleteService) {
         this.queryService = queryService;
+        this.fieldStatisticsService = fieldStatisticsService;
+        this.autocompleteService = autocompleteService;
     }
 
     @PostMapping("/generate")
     public ResponseEntity<JqlResponse> generateJql(@RequestBody List<Condition> conditions) {
         String jql = queryService.buildJqlQuery(conditions);
         String explanation = queryService.buildExplanation(conditions);
-        JqlResponse response = new JqlResponse(jql, explanation);
+        QueryCostEstimate estimate = queryService.estimateCost(conditions);
+        if (queryService.exceedsCostLimit(estimate)) {
+            JqlResponse response = new JqlResponse(null, explanation, estimate);
+            response.setBlocked(true);
+            return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).body(response);
+        }
+        JqlResponse response = new JqlResponse(jql, explanation, estimate);
         return ResponseEntity.ok(response);
     }
+
+    /**
+     * Feeds field values of fetched issues into the statistics used for cost estimation and autocomplete,
+     * keyed by the names in JqlConstants.FIELDS; any other field is rejected with 400,
+     * e.g. [{"project": ["PROJ"], "status": ["Open"], "labels": ["frontend", "api"]}].
+     */
+    @PostMapping("/statistics")
+    public ResponseEntity<Void> recordStatistics(@RequestBody List<Map<String, List<String>>> issues) {
+        boolean unknownField = issues.stream().anyMatch(issueFields -> !JqlConstants.FIELDS.containsAll(issueFields.keySet()));
+        if (unknownField) {
+            return ResponseEntity.badRequest().build();
+        }
+        fieldStatisticsService.record(issues);
+        return ResponseEntity.noContent().build();
+    }
+
+    @GetMapping("/autocomplete/{field}")
+    public ResponseEntity<List<ValueSuggestion>> autocomplete(@PathVariable String field,
+                                                              @RequestParam(defaultValue = "") String prefix,
+                                                              @RequestParam(defaultValue = "10") int limit) {
+        if (!JqlConstants.FIELDS.contains(field) || limit < 1 || limit > 100) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(autocompleteService.suggest(field, prefix, limit));
+    }
 }
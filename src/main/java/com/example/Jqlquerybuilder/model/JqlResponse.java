@@ -1,8 +1,15 @@
 package com.example.Jqlquerybuilder.model;
 
+import java.util.ArrayList;
+import java.util.List;
+
 public class JqlResponse {
     private String jql;
     private String explanation;
+    private Long estimatedMatches;
+    private Double selectivity;
+    private List<String> warnings = new ArrayList<>();
+    private boolean blocked;
 
     public JqlResponse() {
     }
@@ -12,6 +19,13 @@ public class JqlResponse {
         this.explanation = explanation;
     }
 
+    public JqlResponse(String jql, String explanation, QueryCostEstimate estimate) {
+        this(jql, explanation);
+        this.estimatedMatches = estimate.getEstimatedMatches();
+        this.selectivity = estimate.getSelectivity();
+        this.warnings = estimate.getWarnings();
+    }
+
     // Getters and Setters
 
     public String getJql() {
@@ -26,4 +40,28 @@ public class JqlResponse {
     public void setExplanation(String explanation) {
         this.explanation = explanation;
     }
+    public Long getEstimatedMatches() {
+        return estimatedMatches;
+    }
+    public void setEstimatedMatches(Long estimatedMatches) {
+        this.estimatedMatches = estimatedMatches;
+    }
+    public Double getSelectivity() {
+        return selectivity;
+    }
+    public void setSelectivity(Double selectivity) {
+        this.selectivity = selectivity;
+    }
+    public List<String> getWarnings() {
+        return warnings;
+    }
+    public void setWarnings(List<String> warnings) {
+        this.warnings = warnings;
+    }
+    public boolean isBlocked() {
+        return blocked;
+    }
+    public void setBlocked(boolean blocked) {
+        this.blocked = blocked;
+    }
 }
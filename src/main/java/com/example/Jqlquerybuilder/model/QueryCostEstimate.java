@@ -0,0 +1,40 @@
+package com.example.Jqlquerybuilder.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class QueryCostEstimate {
+    private double selectivity;
+    private Long estimatedMatches;
+    private List<String> warnings = new ArrayList<>();
+
+    public QueryCostEstimate() {
+    }
+
+    public QueryCostEstimate(double selectivity, Long estimatedMatches, List<String> warnings) {
+        this.selectivity = selectivity;
+        this.estimatedMatches = estimatedMatches;
+        this.warnings = warnings;
+    }
+
+    // Getters and Setters
+
+    public double getSelectivity() {
+        return selectivity;
+    }
+    public void setSelectivity(double selectivity) {
+        this.selectivity = selectivity;
+    }
+    public Long getEstimatedMatches() {
+        return estimatedMatches;
+    }
+    public void setEstimatedMatches(Long estimatedMatches) {
+        this.estimatedMatches = estimatedMatches;
+    }
+    public List<String> getWarnings() {
+        return warnings;
+    }
+    public void setWarnings(List<String> warnings) {
+        this.warnings = warnings;
+    }
+}
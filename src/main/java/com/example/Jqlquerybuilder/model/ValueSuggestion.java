@@ -0,0 +1,29 @@
+package com.example.Jqlquerybuilder.model;
+
+public class ValueSuggestion {
+    private String value;
+    private long count;
+
+    public ValueSuggestion() {
+    }
+
+    public ValueSuggestion(String value, long count) {
+        this.value = value;
+        this.count = count;
+    }
+
+    // Getters and Setters
+
+    public String getValue() {
+        return value;
+    }
+    public void setValue(String value) {
+        this.value = value;
+    }
+    public long getCount() {
+        return count;
+    }
+    public void setCount(long count) {
+        this.count = count;
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.Jqlquerybuilder.service;
+
+import com.example.Jqlquerybuilder.model.ValueSuggestion;
+import com.example.Jqlquerybuilder.utils.JqlConstants;
+import com.example.Jqlquerybuilder.utils.JqlPrefixIndex;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Service
+public class AutocompleteService {
+
+    // Replaced, never modified, so lookups need no locking
+    private final Map<String, JqlPrefixIndex> indexes = new ConcurrentHashMap<>();
+
+    /**
+     * Merges the values of newly recorded issues into the field indexes, taking counts from the statistics,
+     * and drops the values the statistics evicted meanwhile.
+     * Only values that occur in these issues are touched, so every recorded batch must be passed here.
+     */
+    public synchronized void refresh(List<Map<String, List<String>>> issues, FieldStatistics statistics) {
+        Map<String, Map<String, String>> changed = new HashMap<>();
+        for (Map<String, List<String>> issueFields : issues) {
+            issueFields.forEach((field, values) -> {
+                if (values == null) {
+                    return;
+                }
+                for (String value : values) {
+                    if (value != null && !value.trim().isEmpty()) {
+                        changed.computeIfAbsent(field, f -> new HashMap<>())
+                                .putIfAbsent(FieldStatistics.normalize(value), FieldStatistics.unquote(value));
+                    }
+                }
+            });
+        }
+        // Evicted values have no count left, so merging them removes them from the index
+        statistics.takeEvicted().forEach((field, values) -> {
+            Map<String, String> fieldChanges = changed.computeIfAbsent(field, f -> new HashMap<>());
+            values.forEach(value -> fieldChanges.putIfAbsent(value, value));
+        });
+        changed.forEach((field, values) -> indexes.put(field,
+                indexes.getOrDefault(field, JqlPrefixIndex.EMPTY).merge(values, key -> statistics.getCount(field, key))));
+    }
+
+    /**
+     * Suggests values of the field starting with the prefix, most frequent first.
+     * Falls back to the field's example value until values have been recorded for it.
+     */
+    public List<ValueSuggestion> suggest(String field, String prefix, int limit) {
+        String normalizedPrefix = FieldStatistics.normalize(prefix);
+        JqlPrefixIndex index = indexes.get(field);
+        if (index != null) {
+            return index.suggest(normalizedPrefix, limit);
+        }
+        List<ValueSuggestion> suggestions = new ArrayList<>();
+        String example = JqlConstants.FIELD_EXAMPLES.get(field);
+        if (example != null && limit > 0 && FieldStatistics.normalize(example).startsWith(normalizedPrefix)) {
+            suggestions.add(new ValueSuggestion(example, 0));
+        }
+        return suggestions;
+    }
+}
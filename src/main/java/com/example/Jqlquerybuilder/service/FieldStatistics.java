@@ -0,0 +1,192 @@
+package com.example.Jqlquerybuilder.service;
+
+import java.util.*;
+import java.util.function.Predicate;
+
+/**
+ * Value frequencies per field, collected from issues fetched from Jira.
+ * Values are compared case-insensitively, as Jira does, and multi-valued fields
+ * (labels, components, fix versions) count each value once per issue.
+ * At most maxValuesPerField distinct values are kept per field. Once a field is full, a new value replaces
+ * the least frequent one and takes over its count plus one (the space-saving algorithm), so a value that
+ * becomes frequent late is still tracked; its count may then be overestimated by at most the count it took over.
+ */
+public class FieldStatistics {
+    public static final int DEFAULT_MAX_VALUES_PER_FIELD = 100_000;
+
+    private final int maxValuesPerField;
+    private long totalIssues;
+    private final Map<String, ValueCounts> valueCounts = new HashMap<>();
+    private final Map<String, Long> presentCounts = new HashMap<>();
+    // Values evicted since the last call to takeEvicted, per field
+    private final Map<String, Set<String>> evicted = new HashMap<>();
+
+    public FieldStatistics() {
+        this(DEFAULT_MAX_VALUES_PER_FIELD);
+    }
+
+    public FieldStatistics(int maxValuesPerField) {
+        if (maxValuesPerField < 1) {
+            throw new IllegalArgumentException("maxValuesPerField must be positive: " + maxValuesPerField);
+        }
+        this.maxValuesPerField = maxValuesPerField;
+    }
+
+    /**
+     * Adds the field values of one issue, e.g. {"project": ["PROJ"], "labels": ["frontend", "api"]}.
+     */
+    public synchronized void record(Map<String, List<String>> issueFields) {
+        totalIssues++;
+        issueFields.forEach((field, values) -> {
+            if (values == null) {
+                return;
+            }
+            Set<String> distinct = new HashSet<>();
+            for (String value : values) {
+                if (value != null && !value.trim().isEmpty()) {
+                    distinct.add(normalize(value));
+                }
+            }
+            if (distinct.isEmpty()) {
+                return;
+            }
+            presentCounts.merge(field, 1L, Long::sum);
+            ValueCounts counts = valueCounts.computeIfAbsent(field, f -> new ValueCounts());
+            for (String value : distinct) {
+                String evictedValue = counts.increment(value, maxValuesPerField);
+                if (evictedValue != null) {
+                    evicted.computeIfAbsent(field, f -> new HashSet<>()).add(evictedValue);
+                }
+            }
+        });
+    }
+
+    public synchronized long getTotalIssues() {
+        return totalIssues;
+    }
+
+    public synchronized boolean hasField(String field) {
+        return valueCounts.containsKey(field);
+    }
+
+    public synchronized long getCount(String field, String value) {
+        ValueCounts counts = valueCounts.get(field);
+        return counts == null ? 0 : counts.get(normalize(value));
+    }
+
+    /**
+     * Upper bound of the count of a value that is not tracked: 0 until the field is full, then the lowest tracked count.
+     */
+    public synchronized long getUntrackedCount(String field) {
+        ValueCounts counts = valueCounts.get(field);
+        return counts == null || counts.size() < maxValuesPerField ? 0 : counts.minCount();
+    }
+
+    public synchronized int getDistinctValues(String field) {
+        ValueCounts counts = valueCounts.get(field);
+        return counts == null ? 0 : counts.size();
+    }
+
+    /**
+     * Number of issues that have at least one value for the field.
+     */
+    public synchronized long getPresentCount(String field) {
+        return presentCounts.getOrDefault(field, 0L);
+    }
+
+    public synchronized long countMatching(String field, Predicate<String> predicate) {
+        long count = 0;
+        ValueCounts counts = valueCounts.get(field);
+        if (counts == null) {
+            return 0;
+        }
+        for (ValueCount entry : counts.byValue.values()) {
+            if (predicate.test(entry.value)) {
+                count += entry.count;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns and forgets the values evicted per field since the previous call, so indexes built on the counts can drop them.
+     */
+    public synchronized Map<String, Set<String>> takeEvicted() {
+        Map<String, Set<String>> taken = new HashMap<>(evicted);
+        evicted.clear();
+        return taken;
+    }
+
+    public static String normalize(String value) {
+        return unquote(value).toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * The value as a user would type it in a condition, without surrounding whitespace or quotes.
+     */
+    public static String unquote(String value) {
+        String trimmed = value.trim();
+        if (trimmed.length() >= 2 && trimmed.startsWith("\"") && trimmed.endsWith("\"")) {
+            trimmed = trimmed.substring(1, trimmed.length() - 1);
+        }
+        return trimmed;
+    }
+
+    /**
+     * Counts of one field's values, also ordered by count so the least frequent value is found in O(log n).
+     */
+    private static final class ValueCounts {
+        private final Map<String, ValueCount> byValue = new HashMap<>();
+        private final TreeSet<ValueCount> byCount = new TreeSet<>(
+                Comparator.comparingLong((ValueCount entry) -> entry.count).thenComparing(entry -> entry.value));
+
+        /**
+         * Counts one more issue with the value, evicting the least frequent value if the field is full
+         *
+         * @return the evicted value, or null
+         */
+        String increment(String value, int maxValues) {
+            ValueCount entry = byValue.get(value);
+            String evictedValue = null;
+            if (entry == null) {
+                long count = 0;
+                if (byValue.size() >= maxValues) {
+                    ValueCount least = byCount.pollFirst();
+                    byValue.remove(least.value);
+                    evictedValue = least.value;
+                    count = least.count;
+                }
+                entry = new ValueCount(value, count);
+                byValue.put(value, entry);
+            } else {
+                byCount.remove(entry);
+            }
+            entry.count++;
+            byCount.add(entry);
+            return evictedValue;
+        }
+
+        long get(String value) {
+            ValueCount entry = byValue.get(value);
+            return entry == null ? 0 : entry.count;
+        }
+
+        long minCount() {
+            return byCount.isEmpty() ? 0 : byCount.first().count;
+        }
+
+        int size() {
+            return byValue.size();
+        }
+    }
+
+    private static final class ValueCount {
+        private final String value;
+        private long count;
+
+        ValueCount(String value, long count) {
+            this.value = value;
+            this.count = count;
+        }
+    }
+}
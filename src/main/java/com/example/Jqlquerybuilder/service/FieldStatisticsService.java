@@ -0,0 +1,38 @@
+package com.example.Jqlquerybuilder.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Map;
+
+@Service
+public class FieldStatisticsService {
+
+    private final FieldStatistics statistics;
+    private final AutocompleteService autocompleteService;
+
+    @Autowired
+    public FieldStatisticsService(AutocompleteService autocompleteService,
+                                  @Value("${jql.statistics.max-values-per-field:100000}") int maxValuesPerField) {
+        this.autocompleteService = autocompleteService;
+        this.statistics = new FieldStatistics(maxValuesPerField);
+    }
+
+    public FieldStatistics getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * Records the field values of fetched issues, one map of field name to values per issue,
+     * and refreshes the autocomplete indexes for the values they contain. Both happen under one lock,
+     * so concurrent batches update the indexes in the order they changed the counts.
+     */
+    public synchronized void record(List<Map<String, List<String>>> issues) {
+        for (Map<String, List<String>> issueFields : issues) {
+            statistics.record(issueFields);
+        }
+        autocompleteService.refresh(issues, statistics);
+    }
+}
@@ -0,0 +1,157 @@
+package com.example.Jqlquerybuilder.service;
+
+import com.example.Jqlquerybuilder.model.Condition;
+import com.example.Jqlquerybuilder.model.QueryCostEstimate;
+import com.example.Jqlquerybuilder.utils.JqlQueryUtil;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+public class JqlCostEstimator {
+
+    // Fallbacks when a field has no statistics, after the classic System R defaults
+    private static final double DEFAULT_EQUALITY_SELECTIVITY = 0.1;
+    private static final double DEFAULT_RANGE_SELECTIVITY = 1.0 / 3;
+    private static final double DEFAULT_TEXT_SELECTIVITY = 0.5;
+
+    /**
+     * Estimates the fraction of issues a query built from the conditions will match.
+     * Conditions are combined the way Jira evaluates them: AND binds tighter than OR,
+     * and conditions are assumed to be independent.
+     *
+     * @param broadSelectivity a condition or query matching more than this fraction gets a warning
+     */
+    public static QueryCostEstimate estimate(List<Condition> conditions, FieldStatistics statistics, double broadSelectivity) {
+        List<String> warnings = new ArrayList<>();
+        double noOrBranchMatches = 1.0;
+        double andBranch = -1;
+
+        for (Condition condition : conditions) {
+            String formatted = JqlQueryUtil.formatCondition(condition);
+            if (formatted.isEmpty()) {
+                continue;
+            }
+            double selectivity = estimateCondition(condition, statistics);
+            if (isScanningOperator(condition.getOperator()) && selectivity > broadSelectivity) {
+                warnings.add(formatted + " matches about " + percent(selectivity)
+                        + " of issues; negated and text conditions make Jira scan almost every issue");
+            }
+
+            if (andBranch < 0) {
+                andBranch = selectivity;
+            } else if ("OR".equalsIgnoreCase(condition.getConjunction())) {
+                noOrBranchMatches *= 1 - andBranch;
+                andBranch = selectivity;
+            } else {
+                andBranch *= selectivity;
+            }
+        }
+        if (andBranch < 0) {
+            return new QueryCostEstimate(1.0, null, warnings);
+        }
+        double selectivity = 1 - noOrBranchMatches * (1 - andBranch);
+
+        Long estimatedMatches = null;
+        if (statistics.getTotalIssues() > 0) {
+            estimatedMatches = Math.round(selectivity * statistics.getTotalIssues());
+        }
+        if (selectivity > broadSelectivity) {
+            warnings.add("The query is estimated to match " + percent(selectivity)
+                    + (estimatedMatches != null ? " (" + estimatedMatches + " of " + statistics.getTotalIssues() + ")" : "")
+                    + " of all issues");
+        }
+        return new QueryCostEstimate(selectivity, estimatedMatches, warnings);
+    }
+
+    /**
+     * Estimates the fraction of issues matching a single condition.
+     */
+    public static double estimateCondition(Condition condition, FieldStatistics statistics) {
+        String field = condition.getField();
+        String operator = condition.getOperator();
+        String value = condition.getValue().trim();
+        long total = statistics.getTotalIssues();
+        boolean known = total > 0 && statistics.hasField(field);
+
+        // A condition without an operator is still formatted into the query; estimate it like an unknown operator
+        switch (operator == null ? "" : operator) {
+            case "=":
+                return equality(field, value, statistics, known);
+            case "!=":
+                return 1 - equality(field, value, statistics, known);
+            case "IN":
+                return inList(field, value, statistics, known);
+            case "NOT IN":
+                return 1 - inList(field, value, statistics, known);
+            case "~":
+                return contains(field, value, statistics, known);
+            case "!~":
+                return 1 - contains(field, value, statistics, known);
+            case "IS":
+                return isEmpty(value) ? 1 - present(field, statistics, known) : DEFAULT_EQUALITY_SELECTIVITY;
+            case "IS NOT":
+                return isEmpty(value) ? present(field, statistics, known) : 1 - DEFAULT_EQUALITY_SELECTIVITY;
+            default:
+                // Range comparisons on dates
+                return DEFAULT_RANGE_SELECTIVITY;
+        }
+    }
+
+    private static double equality(String field, String value, FieldStatistics statistics, boolean known) {
+        if (!known) {
+            return DEFAULT_EQUALITY_SELECTIVITY;
+        }
+        // Functions such as currentUser() resolve to a single, unknown value
+        if (value.contains("(")) {
+            return 1.0 / Math.max(1, statistics.getDistinctValues(field));
+        }
+        long count = statistics.getCount(field, value);
+        if (count == 0) {
+            // An untracked value of a full field may be as frequent as the least frequent tracked one
+            count = statistics.getUntrackedCount(field);
+        }
+        // An unseen value may still exist; count it as half an issue rather than nothing
+        return Math.max(count, 0.5) / statistics.getTotalIssues();
+    }
+
+    private static double inList(String field, String value, FieldStatistics statistics, boolean known) {
+        double selectivity = Arrays.stream(value.split(","))
+                .map(String::trim)
+                .filter(v -> !v.isEmpty())
+                .mapToDouble(v -> equality(field, v, statistics, known))
+                .sum();
+        return Math.min(1.0, selectivity);
+    }
+
+    private static double contains(String field, String value, FieldStatistics statistics, boolean known) {
+        if (!known) {
+            return DEFAULT_TEXT_SELECTIVITY;
+        }
+        String term = FieldStatistics.normalize(value);
+        long matching = statistics.countMatching(field, v -> v.contains(term));
+        long upperBound = statistics.getPresentCount(field);
+        return Math.max(Math.min(matching, upperBound), 0.5) / statistics.getTotalIssues();
+    }
+
+    private static double present(String field, FieldStatistics statistics, boolean known) {
+        if (statistics.getTotalIssues() == 0) {
+            return 1 - DEFAULT_EQUALITY_SELECTIVITY;
+        }
+        return known ? (double) statistics.getPresentCount(field) / statistics.getTotalIssues() : 0.0;
+    }
+
+    private static boolean isEmpty(String value) {
+        String normalized = value.toUpperCase(Locale.ROOT);
+        return "EMPTY".equals(normalized) || "NULL".equals(normalized);
+    }
+
+    private static boolean isScanningOperator(String operator) {
+        return "!=".equals(operator) || "NOT IN".equals(operator) || "~".equals(operator) || "!~".equals(operator);
+    }
+
+    private static String percent(double selectivity) {
+        return Math.round(selectivity * 100) + "%";
+    }
+}
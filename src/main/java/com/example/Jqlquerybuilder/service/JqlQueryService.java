@@ -1,7 +1,10 @@
 package com.example.Jqlquerybuilder.service;
 
 import com.example.Jqlquerybuilder.model.Condition;
+import com.example.Jqlquerybuilder.model.QueryCostEstimate;
 import com.example.Jqlquerybuilder.utils.JqlQueryUtil;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
@@ -9,6 +12,19 @@ import java.util.List;
 @Service
 public class JqlQueryService {
 
+    private final FieldStatisticsService fieldStatisticsService;
+    private final double warnSelectivity;
+    private final long maxEstimatedMatches;
+
+    @Autowired
+    public JqlQueryService(FieldStatisticsService fieldStatisticsService,
+                           @Value("${jql.cost.warn-selectivity:0.5}") double warnSelectivity,
+                           @Value("${jql.cost.max-estimated-matches:0}") long maxEstimatedMatches) {
+        this.fieldStatisticsService = fieldStatisticsService;
+        this.warnSelectivity = warnSelectivity;
+        this.maxEstimatedMatches = maxEstimatedMatches;
+    }
+
     public String buildJqlQuery(List<Condition> conditions) {
         return JqlQueryUtil.generateJqlQuery(conditions);
     }
@@ -16,4 +32,17 @@ public class JqlQueryService {
     public String buildExplanation(List<Condition> conditions) {
         return JqlQueryUtil.getCombinedExplanation(conditions);
     }
-}
\ No newline at end of file
+
+    public QueryCostEstimate estimateCost(List<Condition> conditions) {
+        return JqlCostEstimator.estimate(conditions, fieldStatisticsService.getStatistics(), warnSelectivity);
+    }
+
+    /**
+     * True when blocking is enabled and the query is expected to match more issues than allowed.
+     */
+    public boolean exceedsCostLimit(QueryCostEstimate estimate) {
+        return maxEstimatedMatches > 0
+                && estimate.getEstimatedMatches() != null
+                && estimate.getEstimatedMatches() > maxEstimatedMatches;
+    }
+}
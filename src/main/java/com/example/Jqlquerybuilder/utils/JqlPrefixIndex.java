@@ -0,0 +1,159 @@
+package com.example.Jqlquerybuilder.utils;
+
+import com.example.Jqlquerybuilder.model.ValueSuggestion;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.function.ToLongFunction;
+
+/**
+ * Immutable index of the values of one field, answering "most frequent values starting with a prefix".
+ * Values are kept as sorted parallel arrays, so the values sharing a prefix form one contiguous range
+ * found by binary search. A segment tree over the counts then yields the top values of that range
+ * in O(limit * log n), however many values share the prefix.
+ */
+public class JqlPrefixIndex {
+
+    public static final JqlPrefixIndex EMPTY = new JqlPrefixIndex(new String[0], new String[0], new long[0]);
+
+    private final String[] keys;
+    private final String[] values;
+    private final long[] counts;
+    // Iterative segment tree: node i covers nodes 2i and 2i+1, leaf of position p is tree[n + p]
+    private final int[] tree;
+
+    private JqlPrefixIndex(String[] keys, String[] values, long[] counts) {
+        this.keys = keys;
+        this.values = values;
+        this.counts = counts;
+        int n = keys.length;
+        this.tree = new int[2 * n];
+        for (int i = 0; i < n; i++) {
+            tree[n + i] = i;
+        }
+        for (int i = n - 1; i > 0; i--) {
+            tree[i] = better(tree[2 * i], tree[2 * i + 1]);
+        }
+    }
+
+    public int size() {
+        return keys.length;
+    }
+
+    /**
+     * Returns a new index with the changed values added or their counts refreshed; values whose count is now 0 are removed.
+     * Costs O(n + k log k) for k changed values, instead of re-sorting all n values.
+     *
+     * @param changed normalized key to display value of every value whose count changed
+     * @param count   current count of a normalized key
+     */
+    public JqlPrefixIndex merge(Map<String, String> changed, ToLongFunction<String> count) {
+        if (changed.isEmpty()) {
+            return this;
+        }
+        String[] changedKeys = changed.keySet().toArray(new String[0]);
+        Arrays.sort(changedKeys);
+
+        int capacity = keys.length + changedKeys.length;
+        String[] mergedKeys = new String[capacity];
+        String[] mergedValues = new String[capacity];
+        long[] mergedCounts = new long[capacity];
+        int i = 0, j = 0, size = 0;
+        while (i < keys.length || j < changedKeys.length) {
+            int cmp = i == keys.length ? 1 : j == changedKeys.length ? -1 : keys[i].compareTo(changedKeys[j]);
+            if (cmp < 0) {
+                mergedKeys[size] = keys[i];
+                mergedValues[size] = values[i];
+                mergedCounts[size] = counts[i];
+                i++;
+                size++;
+            } else {
+                String key = changedKeys[j];
+                long keyCount = count.applyAsLong(key);
+                if (keyCount > 0) {
+                    mergedKeys[size] = key;
+                    // Keep the spelling seen first, so suggestions do not flicker between casings
+                    mergedValues[size] = cmp == 0 ? values[i] : changed.get(key);
+                    mergedCounts[size] = keyCount;
+                    size++;
+                }
+                if (cmp == 0) {
+                    i++;
+                }
+                j++;
+            }
+        }
+        return new JqlPrefixIndex(Arrays.copyOf(mergedKeys, size), Arrays.copyOf(mergedValues, size),
+                Arrays.copyOf(mergedCounts, size));
+    }
+
+    /**
+     * Returns up to limit values whose normalized form starts with the normalized prefix,
+     * most frequent first and alphabetical among equal counts.
+     */
+    public List<ValueSuggestion> suggest(String prefix, int limit) {
+        int from = lowerBound(prefix);
+        int to = lowerBound(prefix + Character.MAX_VALUE);
+        List<ValueSuggestion> suggestions = new ArrayList<>(Math.min(limit, to - from));
+        if (from >= to || limit <= 0) {
+            return suggestions;
+        }
+
+        // Each entry is a range [from, to) with the position of its best value; popping the best range
+        // emits its best value and splits the rest of the range around it
+        PriorityQueue<int[]> ranges = new PriorityQueue<>((a, b) -> a[2] == b[2] ? 0 : better(a[2], b[2]) == a[2] ? -1 : 1);
+        ranges.add(new int[]{from, to, best(from, to)});
+        while (!ranges.isEmpty() && suggestions.size() < limit) {
+            int[] range = ranges.poll();
+            int position = range[2];
+            suggestions.add(new ValueSuggestion(values[position], counts[position]));
+            if (range[0] < position) {
+                ranges.add(new int[]{range[0], position, best(range[0], position)});
+            }
+            if (position + 1 < range[1]) {
+                ranges.add(new int[]{position + 1, range[1], best(position + 1, range[1])});
+            }
+        }
+        return suggestions;
+    }
+
+    private int lowerBound(String key) {
+        int low = 0, high = keys.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (keys[mid].compareTo(key) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Position of the most frequent value in [from, to).
+     */
+    private int best(int from, int to) {
+        int n = keys.length;
+        int result = from;
+        for (int l = from + n, r = to + n; l < r; l >>= 1, r >>= 1) {
+            if ((l & 1) == 1) {
+                result = better(result, tree[l++]);
+            }
+            if ((r & 1) == 1) {
+                result = better(result, tree[--r]);
+            }
+        }
+        return result;
+    }
+
+    private int better(int a, int b) {
+        if (counts[a] != counts[b]) {
+            return counts[a] > counts[b] ? a : b;
+        }
+        return Math.min(a, b);
+    }
+}
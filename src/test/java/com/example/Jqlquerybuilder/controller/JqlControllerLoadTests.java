@@ -0,0 +1,198 @@
+package com.example.Jqlquerybuilder.controller;
+
+import com.example.Jqlquerybuilder.JqlquerybuilderApplication;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Drives /api/jql/generate at increasing concurrency with platform and with virtual request threads,
+ * and writes throughput, p99 latency and memory per level to target/loadtest/jql-generate.json.
+ * Opt-in: mvn test -Dloadtest=true [-Dloadtest.levels=16,64,256,1024] [-Dloadtest.duration-ms=3000] [-Dloadtest.blocking-ms=20]
+ * The blocking delay stands in for a blocking Jira call made while handling the request.
+ */
+@EnabledIfSystemProperty(named = "loadtest", matches = "true")
+class JqlControllerLoadTests {
+
+	private static final String BODY = "[{\"id\":1,\"field\":\"project\",\"operator\":\"=\",\"value\":\"PROJ\",\"conjunction\":\"AND\"},"
+			+ "{\"id\":2,\"field\":\"status\",\"operator\":\"IN\",\"value\":\"Open, In Progress\",\"conjunction\":\"AND\"}]";
+
+	@Test
+	void comparePlatformAndVirtualThreads() throws Exception {
+		int[] levels = Arrays.stream(System.getProperty("loadtest.levels", "16,64,256,1024").split(","))
+				.map(String::trim).mapToInt(Integer::parseInt).toArray();
+		long durationMillis = Long.getLong("loadtest.duration-ms", 3000);
+		long blockingMillis = Long.getLong("loadtest.blocking-ms", 20);
+
+		Map<String, Object> report = new LinkedHashMap<>();
+		report.put("endpoint", "/api/jql/generate");
+		report.put("durationMillisPerLevel", durationMillis);
+		report.put("blockingMillisPerRequest", blockingMillis);
+		List<Map<String, Object>> results = new ArrayList<>();
+		for (boolean virtual : new boolean[]{false, true}) {
+			results.addAll(runMode(virtual, levels, durationMillis, blockingMillis));
+		}
+		report.put("results", results);
+
+		Path reportFile = Path.of("target", "loadtest", "jql-generate.json");
+		Files.createDirectories(reportFile.getParent());
+		new ObjectMapper().writerWithDefaultPrettyPrinter().writeValue(reportFile.toFile(), report);
+		assertTrue(results.stream().allMatch(result -> (long) result.get("errors") == 0L), "requests failed, see " + reportFile);
+	}
+
+	private List<Map<String, Object>> runMode(boolean virtual, int[] levels, long durationMillis, long blockingMillis) throws Exception {
+		List<Map<String, Object>> results = new ArrayList<>();
+		try (ServletWebServerApplicationContext context = (ServletWebServerApplicationContext) new SpringApplicationBuilder(
+				JqlquerybuilderApplication.class, BlockingCallConfig.class)
+				.properties("server.port=0",
+						"spring.threads.virtual.enabled=" + virtual,
+						"loadtest.blocking-ms=" + blockingMillis,
+						"server.tomcat.accept-count=2000",
+						"logging.level.root=WARN")
+				.run()) {
+			URI uri = URI.create("http://localhost:" + context.getWebServer().getPort() + "/api/jql/generate");
+			try (HttpClient client = HttpClient.newBuilder()
+					.version(HttpClient.Version.HTTP_1_1)
+					.executor(Executors.newVirtualThreadPerTaskExecutor())
+					.build()) {
+				// Warm up the JIT and the connection pool
+				drive(client, uri, 16, 1000);
+				for (int concurrency : levels) {
+					System.gc();
+					long heapBefore = usedHeap();
+					LevelResult level = drive(client, uri, concurrency, durationMillis);
+
+					Map<String, Object> result = new LinkedHashMap<>();
+					result.put("threads", virtual ? "virtual" : "platform");
+					result.put("concurrency", concurrency);
+					result.put("requests", level.latenciesNanos.length);
+					result.put("errors", level.errors);
+					result.put("throughputPerSecond", level.latenciesNanos.length * 1000.0 / durationMillis);
+					result.put("p50Millis", percentileMillis(level.latenciesNanos, 0.50));
+					result.put("p99Millis", percentileMillis(level.latenciesNanos, 0.99));
+					result.put("peakLiveThreads", level.peakThreads);
+					result.put("heapGrowthBytes", level.peakHeap - heapBefore);
+					results.add(result);
+				}
+			}
+		}
+		return results;
+	}
+
+	private LevelResult drive(HttpClient client, URI uri, int concurrency, long durationMillis) throws Exception {
+		HttpRequest request = HttpRequest.newBuilder(uri)
+				.header("Content-Type", "application/json")
+				.POST(HttpRequest.BodyPublishers.ofString(BODY))
+				.build();
+		long deadline = System.nanoTime() + durationMillis * 1_000_000L;
+		AtomicLong errors = new AtomicLong();
+		List<Future<long[]>> workers = new ArrayList<>();
+		var threads = ManagementFactory.getThreadMXBean();
+		threads.resetPeakThreadCount();
+		long peakHeap = usedHeap();
+
+		try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+			for (int i = 0; i < concurrency; i++) {
+				workers.add(executor.submit(() -> {
+					long[] latencies = new long[1024];
+					int count = 0;
+					while (System.nanoTime() < deadline) {
+						long start = System.nanoTime();
+						try {
+							HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+							if (response.statusCode() != 200) {
+								errors.incrementAndGet();
+								continue;
+							}
+						} catch (Exception e) {
+							errors.incrementAndGet();
+							continue;
+						}
+						if (count == latencies.length) {
+							latencies = Arrays.copyOf(latencies, count * 2);
+						}
+						latencies[count++] = System.nanoTime() - start;
+					}
+					return Arrays.copyOf(latencies, count);
+				}));
+			}
+			while (System.nanoTime() < deadline) {
+				peakHeap = Math.max(peakHeap, usedHeap());
+				Thread.sleep(50);
+			}
+
+			long[] all = new long[0];
+			for (Future<long[]> worker : workers) {
+				long[] latencies = worker.get();
+				int offset = all.length;
+				all = Arrays.copyOf(all, offset + latencies.length);
+				System.arraycopy(latencies, 0, all, offset, latencies.length);
+			}
+			Arrays.sort(all);
+			return new LevelResult(all, errors.get(), threads.getPeakThreadCount(), peakHeap);
+		}
+	}
+
+	private static double percentileMillis(long[] sortedNanos, double percentile) {
+		if (sortedNanos.length == 0) {
+			return 0;
+		}
+		int index = (int) Math.min(sortedNanos.length - 1, Math.ceil(percentile * sortedNanos.length) - 1);
+		return sortedNanos[Math.max(0, index)] / 1_000_000.0;
+	}
+
+	private static long usedHeap() {
+		return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+	}
+
+	private record LevelResult(long[] latenciesNanos, long errors, int peakThreads, long peakHeap) {
+	}
+
+	/**
+	 * Registered as an extra source of the application under test, not picked up by component scanning
+	 */
+	static class BlockingCallConfig implements WebMvcConfigurer {
+
+		private final long blockingMillis;
+
+		BlockingCallConfig(@Value("${loadtest.blocking-ms:0}") long blockingMillis) {
+			this.blockingMillis = blockingMillis;
+		}
+
+		@Override
+		public void addInterceptors(InterceptorRegistry registry) {
+			registry.addInterceptor(new HandlerInterceptor() {
+				@Override
+				public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws Exception {
+					if (blockingMillis > 0) {
+						Thread.sleep(blockingMillis);
+					}
+					return true;
+				}
+			});
+		}
+	}
+}
@@ -0,0 +1,62 @@
+package com.example.Jqlquerybuilder.service;
+
+import com.example.Jqlquerybuilder.model.Condition;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FieldStatisticsTests {
+
+	@Test
+	void replacesLeastFrequentValueOnceFieldIsFull() {
+		FieldStatistics statistics = new FieldStatistics(2);
+		for (String assignee : List.of("alice", "bob", "Alice", "carol")) {
+			statistics.record(Map.of("assignee", List.of(assignee)));
+		}
+
+		assertEquals(2, statistics.getDistinctValues("assignee"));
+		assertEquals(2L, statistics.getCount("assignee", "alice"));
+		// carol took over bob's count, so its count is an upper bound
+		assertEquals(2L, statistics.getCount("assignee", "carol"));
+		assertEquals(0L, statistics.getCount("assignee", "bob"));
+		assertEquals(4L, statistics.getPresentCount("assignee"));
+		assertEquals(Map.of("assignee", Set.of("bob")), statistics.takeEvicted());
+		assertTrue(statistics.takeEvicted().isEmpty());
+	}
+
+	@Test
+	void tracksValueThatBecomesFrequentLate() {
+		FieldStatistics statistics = new FieldStatistics(100);
+		for (int i = 0; i < 1000; i++) {
+			statistics.record(Map.of("labels", List.of("rare-" + i)));
+		}
+		for (int i = 0; i < 500; i++) {
+			statistics.record(Map.of("labels", List.of("hot")));
+		}
+
+		assertTrue(statistics.getCount("labels", "hot") >= 500);
+		assertEquals(100, statistics.getDistinctValues("labels"));
+		assertTrue(statistics.getUntrackedCount("labels") > 0);
+		// An estimate of at least a third of all issues, so max-estimated-matches blocking still applies
+		double selectivity = JqlCostEstimator.estimateCondition(new Condition(1, "labels", "=", "hot", "AND"), statistics);
+		assertTrue(selectivity >= 1.0 / 3);
+	}
+
+	@Test
+	void doesNotBoundUntrackedValuesBeforeFieldIsFull() {
+		FieldStatistics statistics = new FieldStatistics(10);
+		statistics.record(Map.of("project", List.of("PROJ")));
+
+		assertEquals(0L, statistics.getUntrackedCount("project"));
+		assertEquals(0L, statistics.getUntrackedCount("labels"));
+	}
+
+	@Test
+	void rejectsNonPositiveBound() {
+		assertThrows(IllegalArgumentException.class, () -> new FieldStatistics(0));
+	}
+}
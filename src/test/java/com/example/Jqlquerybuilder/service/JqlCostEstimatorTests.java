@@ -0,0 +1,84 @@
+package com.example.Jqlquerybuilder.service;
+
+import com.example.Jqlquerybuilder.model.Condition;
+import com.example.Jqlquerybuilder.model.QueryCostEstimate;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JqlCostEstimatorTests {
+
+	private static FieldStatistics sampleStatistics() {
+		FieldStatistics statistics = new FieldStatistics();
+		for (int i = 0; i < 100; i++) {
+			String project = i < 90 ? "PROJ" : "OTHER";
+			List<String> labels = i < 5 ? List.of("xss") : i < 20 ? List.of("backend") : List.of();
+			statistics.record(Map.of("project", List.of(project), "labels", labels));
+		}
+		return statistics;
+	}
+
+	@Test
+	void estimatesSelectiveQueryWithoutWarnings() {
+		List<Condition> conditions = List.of(
+				new Condition(1, "project", "=", "OTHER", "AND"),
+				new Condition(2, "labels", "=", "backend", "AND"));
+
+		QueryCostEstimate estimate = JqlCostEstimator.estimate(conditions, sampleStatistics(), 0.5);
+
+		assertEquals(0.1 * 0.15, estimate.getSelectivity(), 1e-9);
+		assertEquals(2L, estimate.getEstimatedMatches());
+		assertTrue(estimate.getWarnings().isEmpty());
+	}
+
+	@Test
+	void warnsAboutBroadNegationOrTextSearch() {
+		List<Condition> conditions = List.of(
+				new Condition(1, "labels", "~", "x", "AND"),
+				new Condition(2, "project", "!=", "PROJ", "OR"),
+				new Condition(3, "project", "!=", "OTHER", "OR"));
+
+		QueryCostEstimate estimate = JqlCostEstimator.estimate(conditions, sampleStatistics(), 0.5);
+
+		// 1 - (1 - 0.05) * (1 - 0.1) * (1 - 0.9)
+		assertEquals(1 - 0.95 * 0.9 * 0.1, estimate.getSelectivity(), 1e-9);
+		assertEquals(91L, estimate.getEstimatedMatches());
+		assertEquals(2, estimate.getWarnings().size());
+		assertTrue(estimate.getWarnings().get(0).startsWith("project != \"OTHER\""));
+	}
+
+	@Test
+	void andBindsTighterThanOr() {
+		List<Condition> conditions = List.of(
+				new Condition(1, "project", "=", "OTHER", "AND"),
+				new Condition(2, "labels", "IS", "EMPTY", "OR"),
+				new Condition(3, "project", "IN", "PROJ, OTHER", "AND"));
+
+		QueryCostEstimate estimate = JqlCostEstimator.estimate(conditions, sampleStatistics(), 1.0);
+
+		// project = OTHER OR (labels IS EMPTY AND project IN (PROJ, OTHER))
+		assertEquals(1 - 0.9 * (1 - 0.8), estimate.getSelectivity(), 1e-9);
+	}
+
+	@Test
+	void leavesMatchesUnknownWithoutStatistics() {
+		List<Condition> conditions = List.of(new Condition(1, "created", ">=", "-7d", "AND"));
+
+		QueryCostEstimate estimate = JqlCostEstimator.estimate(conditions, new FieldStatistics(), 0.5);
+
+		assertEquals(1.0 / 3, estimate.getSelectivity(), 1e-9);
+		assertNull(estimate.getEstimatedMatches());
+	}
+
+	@Test
+	void estimatesConditionWithoutOperator() {
+		List<Condition> conditions = List.of(new Condition(1, "project", null, "PROJ", "AND"));
+
+		QueryCostEstimate estimate = JqlCostEstimator.estimate(conditions, sampleStatistics(), 0.5);
+
+		assertEquals(1.0 / 3, estimate.getSelectivity(), 1e-9);
+	}
+}
@@ -0,0 +1,85 @@
+package com.example.Jqlquerybuilder.utils;
+
+import com.example.Jqlquerybuilder.model.ValueSuggestion;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JqlPrefixIndexTests {
+
+	@Test
+	void ranksPrefixMatchesByFrequency() {
+		Map<String, Long> counts = Map.of("proj", 5L, "project-x", 9L, "prod", 5L, "api", 50L);
+		Map<String, String> values = Map.of("proj", "PROJ", "project-x", "Project-X", "prod", "PROD", "api", "API");
+
+		JqlPrefixIndex index = JqlPrefixIndex.EMPTY.merge(values, counts::get);
+
+		List<ValueSuggestion> suggestions = index.suggest("pro", 10);
+		assertEquals(List.of("Project-X", "PROD", "PROJ"), suggestions.stream().map(ValueSuggestion::getValue).toList());
+		assertEquals(9L, suggestions.get(0).getCount());
+		assertEquals("API", index.suggest("", 1).get(0).getValue());
+		assertTrue(index.suggest("zzz", 10).isEmpty());
+	}
+
+	@Test
+	void mergeUpdatesCountsAndKeepsFirstSpelling() {
+		Map<String, Long> counts = new HashMap<>(Map.of("open", 3L, "done", 2L));
+		JqlPrefixIndex index = JqlPrefixIndex.EMPTY.merge(Map.of("open", "Open", "done", "Done"), counts::get);
+
+		counts.put("done", 7L);
+		counts.put("doing", 1L);
+		index = index.merge(Map.of("done", "DONE", "doing", "Doing"), counts::get);
+
+		assertEquals(3, index.size());
+		List<ValueSuggestion> suggestions = index.suggest("do", 10);
+		assertEquals("Done", suggestions.get(0).getValue());
+		assertEquals(7L, suggestions.get(0).getCount());
+		assertEquals("Doing", suggestions.get(1).getValue());
+	}
+
+	@Test
+	void mergeRemovesValuesWithoutCount() {
+		Map<String, Long> counts = new HashMap<>(Map.of("open", 3L, "done", 2L));
+		JqlPrefixIndex index = JqlPrefixIndex.EMPTY.merge(Map.of("open", "Open", "done", "Done"), counts::get);
+
+		counts.put("done", 0L);
+		counts.put("closed", 0L);
+		index = index.merge(Map.of("done", "done", "closed", "closed"), counts::get);
+
+		assertEquals(1, index.size());
+		assertEquals("Open", index.suggest("", 10).get(0).getValue());
+	}
+
+	@Test
+	void answersWithinAMillisecondForHundredThousandValues() {
+		Random random = new Random(42);
+		Map<String, String> values = new HashMap<>();
+		Map<String, Long> counts = new HashMap<>();
+		while (values.size() < 100_000) {
+			String key = "user" + Integer.toString(random.nextInt(Integer.MAX_VALUE), 36);
+			values.put(key, key);
+			counts.put(key, (long) random.nextInt(1000));
+		}
+		JqlPrefixIndex index = JqlPrefixIndex.EMPTY.merge(values, counts::get);
+		String[] prefixes = {"", "u", "user", "user1", "userab", "userzz9"};
+
+		// Warm up the JIT before measuring
+		for (int i = 0; i < 20_000; i++) {
+			index.suggest(prefixes[i % prefixes.length], 10);
+		}
+		int queries = 10_000;
+		long start = System.nanoTime();
+		for (int i = 0; i < queries; i++) {
+			assertFalse(index.suggest(prefixes[i % prefixes.length], 10).size() > 10);
+		}
+		double averageMicros = (System.nanoTime() - start) / 1000.0 / queries;
+
+		assertEquals(10, index.suggest("user", 10).size());
+		assertTrue(averageMicros < 1000, "average suggest took " + averageMicros + "us");
+	}
+}
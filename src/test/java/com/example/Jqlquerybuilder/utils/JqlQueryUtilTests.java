@@ -0,0 +1,19 @@
+package com.example.Jqlquerybuilder.utils;
+
+import com.example.Jqlquerybuilder.model.Condition;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JqlQueryUtilTests {
+
+	@Test
+	void generatesQueryFromConditions() {
+		List<Condition> conditions = List.of(
+				new Condition(1, "project", "=", "PROJ", "AND"),
+				new Condition(2, "status", "IN", "Open, Done", "OR"));
+		assertEquals("project = \"PROJ\" OR status IN (Open, Done)", JqlQueryUtil.generateJqlQuery(conditions));
+	}
+}
@@ -0,0 +1,69 @@
+package com.ringcentral.engagemetrics.schedular.api.services;
+
+import com.ringcentral.engagemetrics.database.mongo.documents.AdminConfigTeam;
+import com.ringcentral.engagemetrics.schedular.api.model.jira.Issues;
+import com.ringcentral.engagemetrics.schedular.api.model.jira.Response;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class TeamIssueFetcherTests {
+
+	private final JiraApiService jiraApiService = mock(JiraApiService.class);
+	private final TeamIssueFetcher fetcher = new TeamIssueFetcher(jiraApiService, 6000, 1000, 2);
+
+	@AfterEach
+	void shutdown() {
+		fetcher.shutdown();
+	}
+
+	@Test
+	void mergesResultsOfSeveralQueriesByKey() {
+		when(jiraApiService.getJiraData(eq("q1"), anyInt(), anyInt(), any(), any())).thenReturn(response("A-1", "A-2"));
+		when(jiraApiService.getJiraData(eq("q2"), anyInt(), anyInt(), any(), any())).thenReturn(response("A-2", "A-3"));
+
+		List<Issues> issues = fetcher.fetchQueries(List.of("q1", "q2"), "key", "");
+
+		assertEquals(List.of("A-1", "A-2", "A-3"), issues.stream().map(Issues::getKey).toList());
+	}
+
+	@Test
+	void queriesMembersSharedByTeamsOnce() {
+		List<String> queries = Collections.synchronizedList(new ArrayList<>());
+		when(jiraApiService.getJiraData(anyString(), anyInt(), anyInt(), any(), any())).thenAnswer(invocation -> {
+			queries.add(invocation.getArgument(0));
+			return response();
+		});
+
+		fetcher.fetchIssues(List.of(team("t1", "alice", "bob"), team("t2", " bob", "carol")), "project = PROJ", "key", "");
+
+		assertEquals(List.of("(project = PROJ) AND assignee IN (\"alice\", \"bob\", \"carol\")"), queries);
+	}
+
+	private static AdminConfigTeam team(String id, String... members) {
+		AdminConfigTeam team = new AdminConfigTeam();
+		team.setId(id);
+		team.setMembers(List.of(members));
+		return team;
+	}
+
+	private static Response response(String... keys) {
+		List<Issues> issues = new ArrayList<>();
+		for (String key : keys) {
+			Issues issue = new Issues();
+			issue.setKey(key);
+			issues.add(issue);
+		}
+		Response response = new Response();
+		response.setIssues(issues);
+		response.setTotal(issues.size());
+		return response;
+	}
+}
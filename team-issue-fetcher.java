@@ -0,0 +1,146 @@
+package com.ringcentral.engagemetrics.schedular.api.services;
+
+import com.ringcentral.engagemetrics.database.mongo.documents.AdminConfigTeam;
+import com.ringcentral.engagemetrics.schedular.api.model.jira.Issues;
+import com.ringcentral.engagemetrics.schedular.api.model.jira.Response;
+import com.ringcentral.engagemetrics.schedular.utils.JqlInListTemplate;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Fetches the issues of one or more teams with "assignee IN (members)" queries. Member lists that
+ * would push the GET URL past its limit are split into several queries that run concurrently,
+ * and the results are merged by issue key.
+ */
+@Service
+public class TeamIssueFetcher {
+    private final Logger logger = LoggerFactory.getLogger(TeamIssueFetcher.class);
+    private static final String ASSIGNEE_FIELD = "assignee";
+
+    private final JiraApiService jiraApiService;
+    private final int maxJqlLength;
+    private final int maxResults;
+    private final ExecutorService executor;
+
+    // Team ids of a fetch -> members the template was compiled from, and the compiled template
+    private final Map<List<String>, TeamTemplate> templates = new ConcurrentHashMap<>();
+
+    public TeamIssueFetcher(JiraApiService jiraApiService,
+                            @Value("${jira.api.max-jql-length:6000}") int maxJqlLength,
+                            @Value("${jira.api.max-results:1000}") int maxResults,
+                            @Value("${jira.api.parallel-requests:4}") int parallelRequests) {
+        this.jiraApiService = jiraApiService;
+        this.maxJqlLength = maxJqlLength;
+        this.maxResults = maxResults;
+        this.executor = Executors.newFixedThreadPool(parallelRequests);
+    }
+
+    /**
+     * Fetch all issues assigned to members of the given teams that also match the base JQL
+     *
+     * @param teams teams whose members to query; members shared by several teams are fetched once
+     * @param baseJql JQL every issue must match, e.g. a project and date filter (may be empty)
+     * @param fields comma-separated list of fields to return
+     * @param expand comma-separated list of expansions (e.g., "changelog")
+     * @return issues de-duplicated by key, in the order they were first fetched
+     */
+    public List<Issues> fetchIssues(List<AdminConfigTeam> teams, String baseJql, String fields, String expand) {
+        List<String> queries = templateFor(teams).render(baseJql, maxJqlLength);
+        logger.info("Fetching issues for {} teams with {} queries", teams.size(), queries.size());
+        return fetchQueries(queries, fields, expand);
+    }
+
+    /**
+     * Fetch all issues matching the base JQL and "field IN (values)", splitting the values over several queries when needed
+     */
+    public List<Issues> fetchIssues(String field, List<String> values, String baseJql, String fields, String expand) {
+        return fetchQueries(new JqlInListTemplate(field, values).render(baseJql, maxJqlLength), fields, expand);
+    }
+
+    /**
+     * Run the queries concurrently, paging through each of them
+     *
+     * @return issues de-duplicated by key, in the order they were first fetched
+     */
+    public List<Issues> fetchQueries(List<String> queries, String fields, String expand) {
+        List<CompletableFuture<List<Issues>>> futures = queries.stream()
+                .map(jql -> CompletableFuture.supplyAsync(() -> fetchAll(jql, fields, expand), executor))
+                .toList();
+
+        Map<String, Issues> issuesByKey = new LinkedHashMap<>();
+        for (CompletableFuture<List<Issues>> future : futures) {
+            for (Issues issue : future.join()) {
+                issuesByKey.putIfAbsent(issue.getKey(), issue);
+            }
+        }
+        return new ArrayList<>(issuesByKey.values());
+    }
+
+    /**
+     * Drop the compiled templates that include a team, to be called when its configuration is saved
+     */
+    public void invalidate(String teamId) {
+        templates.keySet().removeIf(teamIds -> teamIds.contains(teamId));
+    }
+
+    /**
+     * One template over the union of the teams' members, so a member of several teams is queried once
+     */
+    private JqlInListTemplate templateFor(List<AdminConfigTeam> teams) {
+        Set<String> members = new LinkedHashSet<>();
+        List<String> teamIds = new ArrayList<>();
+        for (AdminConfigTeam team : teams) {
+            if (team.getMembers() != null) {
+                team.getMembers().stream().map(JqlInListTemplate::normalize).filter(Objects::nonNull).forEach(members::add);
+            }
+            teamIds.add(team.getId());
+        }
+        List<String> memberList = List.copyOf(members);
+        boolean cacheable = !teamIds.contains(null);
+        TeamTemplate cached = cacheable ? templates.get(teamIds) : null;
+        // The member list is compared as well, so an edit is picked up even without an explicit invalidate
+        if (cached != null && cached.members().equals(memberList)) {
+            return cached.template();
+        }
+        JqlInListTemplate template = new JqlInListTemplate(ASSIGNEE_FIELD, memberList);
+        if (cacheable) {
+            templates.put(List.copyOf(teamIds), new TeamTemplate(memberList, template));
+        }
+        return template;
+    }
+
+    private List<Issues> fetchAll(String jql, String fields, String expand) {
+        List<Issues> allIssues = new ArrayList<>();
+        int startAt = 0;
+        boolean hasMore = true;
+
+        while (hasMore) {
+            Response jiraResponse = jiraApiService.getJiraData(jql, startAt, maxResults, fields, expand);
+            List<Issues> issues = jiraResponse.getIssues();
+            if (issues == null || issues.isEmpty()) {
+                break;
+            }
+            allIssues.addAll(issues);
+            startAt += maxResults;
+            hasMore = (issues.size() == maxResults && startAt < jiraResponse.getTotal());
+        }
+        return allIssues;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private record TeamTemplate(List<String> members, JqlInListTemplate template) {
+    }
+}
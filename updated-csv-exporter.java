@@ -1,5 +1,6 @@
 package com.ringcentral.engagemetrics.schedular.utils;
 
+import com.ringcentral.engagemetrics.schedular.api.model.jira.CompactIssue;
 import com.ringcentral.engagemetrics.schedular.api.model.jira.Issues;
 import com.ringcentral.engagemetrics.schedular.api.services.DevelopmentTimeCalculator;
 import org.apache.commons.csv.CSVFormat;
@@ -13,35 +14,70 @@ import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Objects;
+import java.util.function.BiConsumer;
 
 public class CSVExporter {
     private static final Logger logger = LoggerFactory.getLogger(CSVExporter.class);
     private static final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSSZ");
     private static final DevelopmentTimeCalculator timeCalculator = new DevelopmentTimeCalculator();
 
+    private static final String[] HEADERS = {
+            "User Story Key", 
+            "Status Id", 
+            "Assignee", 
+            "Created", 
+            "Due Date", 
+            "Updated", 
+            "Story Points", 
+            "Project ID", 
+            "Priority", 
+            "Created Month", 
+            "Resolved Month", 
+            "Year", 
+            "Total Lead Time (hrs)",
+            "Time to Start (hrs)",
+            "Development Time (hrs)",
+            "First Open Date",
+            "First In Progress Date",
+            "Closed Date"};
+
+    // Optional status breakdown columns, appended when requested
+    private static final String[] STATUS_BREAKDOWN_HEADERS = {
+            "Blocked Time (hrs)",
+            "Review Time (hrs)",
+            "Reopen Count",
+            "Return Count",
+            "Time in Status (hrs)"};
+
     public static void exportStoriesToCSV(List<Issues> issues, String filePath) {
+        exportStoriesToCSV(issues, filePath, false);
+    }
+
+    public static void exportStoriesToCSV(List<Issues> issues, String filePath, boolean includeStatusBreakdown) {
+        exportStoriesToCSV(issues, filePath, includeStatusBreakdown, null);
+    }
+
+    /**
+     * Export issues to CSV, handing the computed metrics of every issue to metricsConsumer (may be null)
+     * so downstream aggregation can reuse them instead of recomputing
+     */
+    public static void exportStoriesToCSV(List<Issues> issues, String filePath, boolean includeStatusBreakdown,
+                                          BiConsumer<Issues, DevelopmentTimeCalculator.DevelopmentMetrics> metricsConsumer) {
+        exportStoriesToCSV(issues, filePath, includeStatusBreakdown, metricsConsumer, timeCalculator);
+    }
+
+    /**
+     * Export issues to CSV using the given calculator, e.g. one backed by the development metrics cache
+     */
+    public static void exportStoriesToCSV(List<Issues> issues, String filePath, boolean includeStatusBreakdown,
+                                          BiConsumer<Issues, DevelopmentTimeCalculator.DevelopmentMetrics> metricsConsumer,
+                                          DevelopmentTimeCalculator calculator) {
         try (BufferedWriter writer = Files.newBufferedWriter(Paths.get(filePath));
-             CSVPrinter csvPrinter = new CSVPrinter(writer,
-                     CSVFormat.DEFAULT.withHeader(
-                             "User Story Key", 
-                             "Status Id", 
-                             "Assignee", 
-                             "Created", 
-                             "Due Date", 
-                             "Updated", 
-                             "Story Points", 
-                             "Project ID", 
-                             "Priority", 
-                             "Created Month", 
-                             "Resolved Month", 
-                             "Year", 
-                             "Total Lead Time (hrs)",
-                             "Time to Start (hrs)",
-                             "Development Time (hrs)",
-                             "First Open Date",
-                             "First In Progress Date",
-                             "Closed Date"))) {
+             CSVPrinter csvPrinter = new CSVPrinter(writer, CSVFormat.DEFAULT.withHeader(headers(includeStatusBreakdown)))) {
             
             issues.forEach(issue -> {
                 String key = issue.getKey();
@@ -64,29 +100,28 @@ public class CSVExporter {
                         String.valueOf(LocalDateTime.parse(resolvedDate, formatter).getYear()) : "";
                 
                 // Calculate development time metrics
-                DevelopmentTimeCalculator.DevelopmentMetrics metrics = timeCalculator.calculateDevelopmentMetrics(issue);
+                DevelopmentTimeCalculator.DevelopmentMetrics metrics = calculator.calculateDevelopmentMetrics(issue);
+                if (metricsConsumer != null) {
+                    metricsConsumer.accept(issue, metrics);
+                }
+                
+                List<Object> record = new ArrayList<>(Arrays.asList(
+                        key, 
+                        statusId, 
+                        assigneeName, 
+                        created, 
+                        duedate, 
+                        updated, 
+                        storyPoints, 
+                        projectKey,
+                        priority, 
+                        createdMonth, 
+                        resolvedMonth, 
+                        resolvedYear));
+                addMetrics(record, metrics, includeStatusBreakdown);
                 
                 try {
-                    csvPrinter.printRecord(
-                            key, 
-                            statusId, 
-                            assigneeName, 
-                            created, 
-                            duedate, 
-                            updated, 
-                            storyPoints, 
-                            projectKey,
-                            priority, 
-                            createdMonth, 
-                            resolvedMonth, 
-                            resolvedYear, 
-                            metrics.getTotalLeadTime(),
-                            metrics.getTimeToStart(),
-                            metrics.getDevelopmentTime(),
-                            metrics.getOpenDate(),
-                            metrics.getInProgressDate(),
-                            metrics.getClosedDate()
-                    );
+                    csvPrinter.printRecord(record);
                 } catch (IOException e) {
                     logger.error("Error writing CSV record", e);
                 }
@@ -97,4 +132,85 @@ public class CSVExporter {
             logger.error("Error writing CSV file", e);
         }
     }
+
+    /**
+     * Export compact issues to CSV, with the same columns and values as for full issues
+     */
+    public static void exportCompactStoriesToCSV(List<CompactIssue> issues, String filePath, boolean includeStatusBreakdown,
+                                                 BiConsumer<CompactIssue, DevelopmentTimeCalculator.DevelopmentMetrics> metricsConsumer,
+                                                 DevelopmentTimeCalculator calculator) {
+        try (BufferedWriter writer = Files.newBufferedWriter(Paths.get(filePath));
+             CSVPrinter csvPrinter = new CSVPrinter(writer, CSVFormat.DEFAULT.withHeader(headers(includeStatusBreakdown)))) {
+            
+            for (CompactIssue issue : issues) {
+                String resolvedMonth = "";
+                String resolvedYear = "";
+                if (issue.getResolutionDateAt() != JiraTimestamps.ABSENT) {
+                    LocalDateTime resolved = JiraTimestamps.toLocalDateTime(issue.getResolutionDateAt());
+                    resolvedMonth = resolved.getMonth().name().substring(0, 3);
+                    resolvedYear = String.valueOf(resolved.getYear());
+                }
+                String createdMonth = issue.getCreatedAt() != JiraTimestamps.ABSENT ?
+                        JiraTimestamps.toLocalDateTime(issue.getCreatedAt()).getMonth().name().substring(0, 3) : "";
+                
+                DevelopmentTimeCalculator.DevelopmentMetrics metrics = calculator.calculateDevelopmentMetrics(issue);
+                if (metricsConsumer != null) {
+                    metricsConsumer.accept(issue, metrics);
+                }
+                
+                List<Object> record = new ArrayList<>(Arrays.asList(
+                        issue.getKey(),
+                        Objects.toString(issue.getStatusId(), ""),
+                        Objects.toString(issue.getAssigneeName(), ""),
+                        issue.getCreated(),
+                        issue.getDuedate(),
+                        issue.getUpdated(),
+                        issue.getStoryPoint(),
+                        Objects.toString(issue.getProjectKey(), ""),
+                        Objects.toString(issue.getPriorityName(), ""),
+                        createdMonth,
+                        resolvedMonth,
+                        resolvedYear));
+                addMetrics(record, metrics, includeStatusBreakdown);
+                
+                try {
+                    csvPrinter.printRecord(record);
+                } catch (IOException e) {
+                    logger.error("Error writing CSV record", e);
+                }
+            }
+            
+            csvPrinter.flush();
+        } catch (IOException e) {
+            logger.error("Error writing CSV file", e);
+        }
+    }
+
+    private static String[] headers(boolean includeStatusBreakdown) {
+        if (!includeStatusBreakdown) {
+            return HEADERS;
+        }
+        String[] headers = new String[HEADERS.length + STATUS_BREAKDOWN_HEADERS.length];
+        System.arraycopy(HEADERS, 0, headers, 0, HEADERS.length);
+        System.arraycopy(STATUS_BREAKDOWN_HEADERS, 0, headers, HEADERS.length, STATUS_BREAKDOWN_HEADERS.length);
+        return headers;
+    }
+
+    private static void addMetrics(List<Object> record, DevelopmentTimeCalculator.DevelopmentMetrics metrics,
+                                   boolean includeStatusBreakdown) {
+        record.add(metrics.getTotalLeadTime());
+        record.add(metrics.getTimeToStart());
+        record.add(metrics.getDevelopmentTime());
+        record.add(metrics.getOpenDate());
+        record.add(metrics.getInProgressDate());
+        record.add(metrics.getClosedDate());
+        if (includeStatusBreakdown) {
+            DevelopmentTimeCalculator.StatusTimeBreakdown breakdown = metrics.getStatusBreakdown();
+            record.add(breakdown.getBlockedTime());
+            record.add(breakdown.getReviewTime());
+            record.add(breakdown.getReopenCount());
+            record.add(breakdown.getReturnCount());
+            record.add(breakdown.toSummary());
+        }
+    }
 }
@@ -1,12 +1,13 @@
 package com.ringcentral.engagemetrics.schedular.api.queries;
 
 import com.ringcentral.engagemetrics.schedular.api.config.FeignClientInterceptor;
+import com.ringcentral.engagemetrics.schedular.api.config.JiraFeignTransportConfig;
 import com.ringcentral.engagemetrics.schedular.api.model.jira.Response;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 
-@FeignClient(name = "jira-api", url = "${jira.api.base.url}", configuration = FeignClientInterceptor.class)
+@FeignClient(name = "jira-api", url = "${jira.api.base.url}", configuration = {FeignClientInterceptor.class, JiraFeignTransportConfig.class})
 public interface JiraApiClient {
     /**
      * Get issues from JIRA API with optional changelog expansion
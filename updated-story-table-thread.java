@@ -1,11 +1,14 @@
 package com.ringcentral.engagemetrics.schedular.api.services;
 
+import com.ringcentral.engagemetrics.schedular.api.model.jira.CompactIssue;
+import com.ringcentral.engagemetrics.schedular.api.model.jira.IssueDictionary;
 import com.ringcentral.engagemetrics.schedular.api.model.jira.Issues;
 import com.ringcentral.engagemetrics.schedular.api.model.jira.Response;
 import com.ringcentral.engagemetrics.schedular.utils.CSVExporter;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
@@ -16,8 +19,15 @@ import java.util.List;
 public class StoryTableThread {
     private final Logger logger = LoggerFactory.getLogger(StoryTableThread.class);
     private final JiraApiService jiraApiService;
+    private final DevelopmentMetricsAggregator developmentMetricsAggregator;
+    private final DevelopmentTimeCalculator developmentTimeCalculator;
+    private final DevelopmentMetricsCache developmentMetricsCache;
     private final int maxResults = 1000;
     
+    // Adds the blocked, review, reopen/return and time in status columns to the export
+    @Value("${jira.export.status-breakdown:false}")
+    private boolean includeStatusBreakdown;
+    
     // Core fields needed for analysis
     private static final String CORE_FIELDS = "key,status,assignee,created,duedate,updated,resolutiondate,priority,customfield_10002,project";
     
@@ -33,7 +43,9 @@ public class StoryTableThread {
             logger.info("Fetching Story issues from Jira...");
             int startAt = 0;
             boolean hasMore = true;
-            List<Issues> allIssues = new ArrayList<>();
+            // Issues are kept in compact form only, so each fetched page can be garbage collected once converted
+            IssueDictionary dictionary = new IssueDictionary();
+            List<CompactIssue> allIssues = new ArrayList<>();
             
             while (hasMore) {
                 logger.info("Fetching batch starting at {}", startAt);
@@ -45,7 +57,9 @@ public class StoryTableThread {
                     break;
                 }
                 
-                allIssues.addAll(issues);
+                for (Issues issue : issues) {
+                    allIssues.add(CompactIssue.of(issue, dictionary));
+                }
                 logger.info("Fetched {} issues, total collected: {}", issues.size(), allIssues.size());
                 
                 // Check if we've processed all issues
@@ -53,8 +67,12 @@ public class StoryTableThread {
                 hasMore = (issues.size() == maxResults && startAt < jiraResponse.getTotal());
             }
             
-            // Dump all issues to CSV
-            CSVExporter.exportStoriesToCSV(allIssues, "stories.csv");
+            // Dump all issues to CSV, feeding the same metrics into a fresh snapshot that replaces the previous one of this query
+            DevelopmentMetricsAggregator.Snapshot aggregates = new DevelopmentMetricsAggregator.Snapshot();
+            CSVExporter.exportCompactStoriesToCSV(allIssues, "stories.csv", includeStatusBreakdown,
+                    aggregates::record, developmentTimeCalculator);
+            developmentMetricsAggregator.publish(jqlQuery.trim(), aggregates);
+            developmentMetricsCache.persist();
             logger.info("Data dumped to CSV with {} total records.", allIssues.size());
             
         } catch (Exception e) {